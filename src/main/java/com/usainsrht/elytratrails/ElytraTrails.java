@@ -3,14 +3,19 @@ package com.usainsrht.elytratrails;
 import com.usainsrht.elytratrails.command.ElytraCommand;
 import com.usainsrht.elytratrails.config.PlayerDataManager;
 import com.usainsrht.elytratrails.config.TrailManager;
+import com.usainsrht.elytratrails.economy.PurchaseService;
 import com.usainsrht.elytratrails.economy.VaultHook;
 import com.usainsrht.elytratrails.gui.TrailGUI;
 import com.usainsrht.elytratrails.listener.GUIListener;
+import com.usainsrht.elytratrails.listener.GlideListener;
 import com.usainsrht.elytratrails.listener.PlayerListener;
 import com.usainsrht.elytratrails.trail.ParticleTask;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.IOException;
+
 public final class ElytraTrails extends JavaPlugin {
 
     private static ElytraTrails instance;
@@ -18,6 +23,7 @@ public final class ElytraTrails extends JavaPlugin {
     private TrailManager trailManager;
     private PlayerDataManager playerDataManager;
     private VaultHook vaultHook;
+    private PurchaseService purchaseService;
     private TrailGUI trailGUI;
     private ParticleTask particleTask;
 
@@ -26,8 +32,18 @@ public final class ElytraTrails extends JavaPlugin {
         instance = this;
 
         // ── Configuration ────────────────────────────────────
-        trailManager = new TrailManager(this);
-        playerDataManager = new PlayerDataManager(this);
+        saveDefaultConfig();
+        try {
+            trailManager = new TrailManager(this);
+            playerDataManager = new PlayerDataManager(this);
+        } catch (IOException e) {
+            getLogger().severe("Could not open plugin data: " + e.getMessage());
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
+        for (Player player : getServer().getOnlinePlayers()) {
+            playerDataManager.markOnline(player.getUniqueId());
+        }
 
         // ── Economy ──────────────────────────────────────────
         vaultHook = new VaultHook();
@@ -36,17 +52,19 @@ public final class ElytraTrails extends JavaPlugin {
         } else {
             getLogger().info("Vault not found — trail purchasing disabled.");
         }
+        purchaseService = new PurchaseService(this, vaultHook, playerDataManager);
 
-        // ── Particle task (runs every tick; emitters control their own intervals) ──
-        particleTask = new ParticleTask(this, trailManager, playerDataManager);
-        particleTask.runTaskTimer(this, 0L, 1L);
+        // ── Particle task (runs every tick while anyone glides; emitters control their own intervals) ──
+        particleTask = new ParticleTask(this, trailManager, playerDataManager, useRegionScheduling());
+        particleTask.openAll();
 
         // ── GUI ──────────────────────────────────────────────
-        trailGUI = new TrailGUI(this, trailManager, playerDataManager, vaultHook);
+        trailGUI = new TrailGUI(this, trailManager, playerDataManager, vaultHook, purchaseService);
 
         // ── Listeners ────────────────────────────────────────
         getServer().getPluginManager().registerEvents(new GUIListener(trailGUI), this);
         getServer().getPluginManager().registerEvents(new PlayerListener(playerDataManager), this);
+        getServer().getPluginManager().registerEvents(new GlideListener(particleTask), this);
 
         // ── Commands ─────────────────────────────────────────
         ElytraCommand elytraCommand = new ElytraCommand(this, trailManager, playerDataManager, trailGUI);
@@ -62,7 +80,10 @@ public final class ElytraTrails extends JavaPlugin {
     @Override
     public void onDisable() {
         if (particleTask != null) {
-            particleTask.cancel();
+            particleTask.shutdown();
+        }
+        if (purchaseService != null) {
+            purchaseService.shutdown();
         }
         if (playerDataManager != null) {
             playerDataManager.saveAll();
@@ -70,6 +91,34 @@ public final class ElytraTrails extends JavaPlugin {
         getLogger().info("ElytraTrails disabled.");
     }
 
+    /**
+     * Decide between one global ticker and per-player entity schedulers
+     * from {@code scheduler.mode} (auto / global / region).
+     */
+    private boolean useRegionScheduling() {
+        String mode = getConfig().getString("scheduler.mode", "auto").toLowerCase();
+        boolean folia = isFolia();
+        if (mode.equals("global") && folia) {
+            getLogger().warning("scheduler.mode 'global' is not supported on a region-threaded server; using 'region'.");
+            return true;
+        }
+        boolean region = mode.equals("region") || (mode.equals("auto") && folia);
+        if (region) getLogger().info("Rendering trails on per-player region schedulers.");
+        return region;
+    }
+
+    /**
+     * @return whether the server runs Folia-style regionised ticking
+     */
+    public static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
     // ── Accessors ────────────────────────────────────────────
 
     public static ElytraTrails getInstance() {
@@ -91,4 +140,8 @@ public final class ElytraTrails extends JavaPlugin {
     public TrailGUI getTrailGUI() {
         return trailGUI;
     }
+
+    public ParticleTask getParticleTask() {
+        return particleTask;
+    }
 }
@@ -0,0 +1,237 @@
+package com.usainsrht.elytratrails.command;
+
+import com.usainsrht.elytratrails.ElytraTrails;
+import com.usainsrht.elytratrails.config.PlayerDataManager;
+import com.usainsrht.elytratrails.config.TrailManager;
+import com.usainsrht.elytratrails.storage.StorageBenchmark;
+import com.usainsrht.elytratrails.storage.StorageMigration;
+import com.usainsrht.elytratrails.storage.YamlPlayerReader;
+import com.usainsrht.elytratrails.storage.YamlPlayerWriter;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+
+/**
+ * Handles /elytra data – player storage tools:
+ *   /elytra data                     – storage status
+ *   /elytra data export [file]       – current storage → players.yml format
+ *   /elytra data import <file>       – players.yml format → current storage
+ *   /elytra data migrate <backend>   – how to switch backends (copied on startup)
+ *   /elytra data bench [players]     – times every storage backend on synthetic data
+ *
+ * <p>YAML is streamed in both directions (event-based reading, sequential
+ * writing), so memory stays bounded regardless of file size. Every
+ * operation runs on a background thread, one at a time, and reports
+ * progress to the sender. Files are resolved inside the plugin folder.
+ */
+class DataCommand {
+
+    private static final long PROGRESS_INTERVAL_MS = 2000;
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private final ElytraTrails plugin;
+    private final TrailManager trailManager;
+    private final PlayerDataManager playerData;
+
+    /** Only one data operation at a time; they are disk-heavy. */
+    private final AtomicBoolean busy = new AtomicBoolean();
+
+    DataCommand(ElytraTrails plugin, TrailManager trailManager, PlayerDataManager playerData) {
+        this.plugin = plugin;
+        this.trailManager = trailManager;
+        this.playerData = playerData;
+    }
+
+    boolean handle(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(ChatColor.GRAY + "Storage: " + ChatColor.WHITE + playerData.getStorage().getName()
+                    + ChatColor.GRAY + "  Pending writes: " + ChatColor.WHITE + playerData.getDirtyCount()
+                    + ChatColor.GRAY + "  Cached offline: " + ChatColor.WHITE + playerData.getRetainedCount());
+            sender.sendMessage(ChatColor.RED + "Usage: /elytra data <export|import|migrate|bench>");
+            return true;
+        }
+
+        switch (args[1].toLowerCase()) {
+            case "export" -> export(sender, args);
+            case "import" -> importFile(sender, args);
+            case "migrate" -> migrate(sender, args);
+            case "bench" -> bench(sender, args);
+            default -> sender.sendMessage(ChatColor.RED + "Usage: /elytra data <export|import|migrate|bench>");
+        }
+        return true;
+    }
+
+    List<String> complete(String[] args) {
+        if (args.length == 2) return List.of("export", "import", "migrate", "bench");
+        if (args.length == 3 && args[1].equalsIgnoreCase("migrate")) return PlayerDataManager.BACKENDS;
+        return Collections.emptyList();
+    }
+
+    // ── Sub-commands ────────────────────────────────────────
+
+    private void export(CommandSender sender, String[] args) {
+        String name = args.length >= 3 ? args[2]
+                : "exports/players-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".yml";
+        Path file = resolve(sender, name);
+        if (file == null) return;
+
+        runAsync(sender, "Export", () -> {
+            int count = exportTo(file, progress(sender, "Exported"));
+            sender.sendMessage(ChatColor.GREEN + "Exported " + count + " players to "
+                    + plugin.getDataFolder().toPath().relativize(file) + ".");
+        });
+    }
+
+    private void importFile(CommandSender sender, String[] args) {
+        if (args.length < 3) {
+            sender.sendMessage(ChatColor.RED + "Usage: /elytra data import <file>");
+            return;
+        }
+        Path file = resolve(sender, args[2]);
+        if (file == null) return;
+        if (!Files.isRegularFile(file)) {
+            sender.sendMessage(ChatColor.RED + "File '" + args[2] + "' not found in the plugin folder.");
+            return;
+        }
+
+        runAsync(sender, "Import", () -> {
+            int count;
+            try {
+                count = playerData.importAsync(new YamlPlayerReader(file, trailManager.getIndex()),
+                        progress(sender, "Imported")).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+                throw e;
+            }
+            sender.sendMessage(ChatColor.GREEN + "Imported " + count + " players into "
+                    + playerData.getStorage().getName() + " storage, including online and cached players.");
+        });
+    }
+
+    private void migrate(CommandSender sender, String[] args) {
+        if (args.length < 3 || !PlayerDataManager.BACKENDS.contains(args[2].toLowerCase())) {
+            sender.sendMessage(ChatColor.RED + "Usage: /elytra data migrate <"
+                    + String.join("|", PlayerDataManager.BACKENDS) + ">");
+            return;
+        }
+        String backend = args[2].toLowerCase();
+        if (backend.equals(playerData.getStorage().getName())) {
+            sender.sendMessage(ChatColor.RED + "Player data is already stored in " + backend + ".");
+            return;
+        }
+
+        // Copying now would miss every change made before the restart; the switch copies at startup
+        String current = playerData.getStorage().getName();
+        sender.sendMessage(ChatColor.YELLOW + "Set storage.backend to '" + backend + "' in config.yml and restart.");
+        sender.sendMessage(ChatColor.GRAY + "Player data is copied from " + current + " to " + backend
+                + " during startup, before anything is written; the " + current + " data is left in place.");
+    }
+
+    private void bench(CommandSender sender, String[] args) {
+        int players = 10_000;
+        if (args.length >= 3) {
+            try {
+                players = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                players = -1;
+            }
+            if (players < 1 || players > 1_000_000) {
+                sender.sendMessage(ChatColor.RED + "Player count must be between 1 and 1000000.");
+                return;
+            }
+        }
+
+        int count = players;
+        List<String> trailIds = new ArrayList<>(trailManager.getTrailIds());
+        Path dir = plugin.getDataFolder().toPath().resolve("bench-" + System.currentTimeMillis());
+        runAsync(sender, "Storage benchmark", () -> {
+            sender.sendMessage(ChatColor.YELLOW + "Benchmarking storage backends with " + count + " players...");
+            List<StorageBenchmark.Result> results = StorageBenchmark.run(dir, count, trailIds);
+            sender.sendMessage(ChatColor.GOLD + "── Storage benchmark (" + count + " players, ms) ──");
+            for (StorageBenchmark.Result r : results) {
+                sender.sendMessage(ChatColor.WHITE + r.backend() + ChatColor.GRAY
+                        + "  write " + ChatColor.WHITE + r.writeMs() + ChatColor.GRAY
+                        + "  flush " + ChatColor.WHITE + r.flushMs() + ChatColor.GRAY
+                        + "  open " + ChatColor.WHITE + r.openMs() + ChatColor.GRAY
+                        + "  1000 loads " + ChatColor.WHITE + r.loadMs() + ChatColor.GRAY
+                        + "  scan " + ChatColor.WHITE + r.scanMs());
+            }
+        });
+    }
+
+    // ── Helpers ─────────────────────────────────────────────
+
+    /**
+     * Stream the current storage into a YAML file, after flushing pending changes.
+     *
+     * @return the number of players written
+     */
+    private int exportTo(Path file, IntConsumer progress) throws IOException {
+        playerData.flushAsync().join();
+        try (YamlPlayerWriter writer = new YamlPlayerWriter(file, trailManager.getIndex())) {
+            return StorageMigration.copy(playerData.getStorage()::forEach, writer, progress);
+        }
+    }
+
+    /**
+     * @return a progress callback that tells the sender at most every couple of seconds
+     */
+    private static IntConsumer progress(CommandSender sender, String verb) {
+        long[] last = {System.currentTimeMillis()};
+        return count -> {
+            long now = System.currentTimeMillis();
+            if (now - last[0] < PROGRESS_INTERVAL_MS) return;
+            last[0] = now;
+            sender.sendMessage(ChatColor.GRAY + verb + " " + count + " players...");
+        };
+    }
+
+    /**
+     * @return the path inside the plugin folder, or null (sender told) if it escapes it
+     */
+    private Path resolve(CommandSender sender, String name) {
+        Path folder = plugin.getDataFolder().toPath().toAbsolutePath().normalize();
+        Path file = folder.resolve(name).normalize();
+        if (!file.startsWith(folder)) {
+            sender.sendMessage(ChatColor.RED + "Files must be inside the plugin folder.");
+            return null;
+        }
+        return file;
+    }
+
+    private void runAsync(CommandSender sender, String what, Task task) {
+        if (!busy.compareAndSet(false, true)) {
+            sender.sendMessage(ChatColor.RED + "Another data operation is already running.");
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                task.run();
+            } catch (IOException | RuntimeException e) {
+                plugin.getLogger().log(Level.WARNING, what + " failed", e);
+                sender.sendMessage(ChatColor.RED + what + " failed: " + e.getMessage());
+            } finally {
+                busy.set(false);
+            }
+        }, "ElytraTrails-Data");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -5,8 +5,11 @@ import com.usainsrht.elytratrails.config.PlayerDataManager;
 import com.usainsrht.elytratrails.config.TrailManager;
 import com.usainsrht.elytratrails.gui.TrailGUI;
 import com.usainsrht.elytratrails.model.Trail;
+import com.usainsrht.elytratrails.trail.EmitterScheduler;
+import com.usainsrht.elytratrails.trail.ParticleBudget;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabExecutor;
@@ -23,8 +26,10 @@ import java.util.stream.Collectors;
  * Handles /elytra commands:
  *   /elytra          – opens the GUI
  *   /elytra gui      – opens the GUI
- *   /elytra reload   – reloads trails.yml
+ *   /elytra reload   – reloads config.yml and trails.yml
  *   /elytra give <player> <trail-id> – unlocks a trail for a player
+ *   /elytra budget   – shows the current particle budget / throttling state
+ *   /elytra data ... – player storage tools, see {@link DataCommand}
  */
 public class ElytraCommand implements TabExecutor {
 
@@ -32,6 +37,7 @@ public class ElytraCommand implements TabExecutor {
     private final TrailManager trailManager;
     private final PlayerDataManager playerData;
     private final TrailGUI trailGUI;
+    private final DataCommand dataCommand;
 
     public ElytraCommand(ElytraTrails plugin, TrailManager trailManager,
                          PlayerDataManager playerData, TrailGUI trailGUI) {
@@ -39,6 +45,7 @@ public class ElytraCommand implements TabExecutor {
         this.trailManager = trailManager;
         this.playerData = playerData;
         this.trailGUI = trailGUI;
+        this.dataCommand = new DataCommand(plugin, trailManager, playerData);
     }
 
     @Override
@@ -56,8 +63,18 @@ public class ElytraCommand implements TabExecutor {
             case "give" -> {
                 return handleGive(sender, args);
             }
+            case "budget" -> {
+                return handleBudget(sender);
+            }
+            case "data" -> {
+                if (!sender.hasPermission("elytratrails.admin")) {
+                    sender.sendMessage(ChatColor.RED + "You don't have permission to use this command.");
+                    return true;
+                }
+                return dataCommand.handle(sender, args);
+            }
             default -> {
-                sender.sendMessage(ChatColor.RED + "Unknown sub-command. Use: gui, reload, give");
+                sender.sendMessage(ChatColor.RED + "Unknown sub-command. Use: gui, reload, give, budget, data");
                 return true;
             }
         }
@@ -83,7 +100,9 @@ public class ElytraCommand implements TabExecutor {
             sender.sendMessage(ChatColor.RED + "You don't have permission to reload.");
             return true;
         }
+        plugin.reloadConfig();
         trailManager.loadTrails();
+        plugin.getParticleTask().reloadSettings();
         sender.sendMessage(ChatColor.GREEN + "ElytraTrails configuration reloaded!");
         return true;
     }
@@ -98,12 +117,6 @@ public class ElytraCommand implements TabExecutor {
             return true;
         }
 
-        Player target = Bukkit.getPlayerExact(args[1]);
-        if (target == null) {
-            sender.sendMessage(ChatColor.RED + "Player '" + args[1] + "' is not online.");
-            return true;
-        }
-
         String trailId = args[2].toLowerCase();
         Trail trail = trailManager.getTrail(trailId);
         if (trail == null) {
@@ -111,7 +124,13 @@ public class ElytraCommand implements TabExecutor {
             return true;
         }
 
-        playerData.unlockTrail(target.getUniqueId(), trailId);
+        Player target = Bukkit.getPlayerExact(args[1]);
+        if (target == null) {
+            return giveOffline(sender, args[1], trail);
+        }
+
+        playerData.unlockTrail(target.getUniqueId(), trail);
+        plugin.getParticleTask().refresh(target);
         sender.sendMessage(ChatColor.GREEN + "Unlocked trail '"
                 + ChatColor.translateAlternateColorCodes('&', trail.getDisplayName())
                 + ChatColor.GREEN + "' for " + target.getName() + ".");
@@ -120,6 +139,72 @@ public class ElytraCommand implements TabExecutor {
         return true;
     }
 
+    /**
+     * Unlock a trail for a player who is not online. Their data is loaded
+     * and changed on the loader threads, never on the main thread.
+     */
+    private boolean giveOffline(CommandSender sender, String name, Trail trail) {
+        // Only the local user cache; a web lookup would block the main thread
+        OfflinePlayer offline = Bukkit.getOfflinePlayerIfCached(name);
+        if (offline == null || !offline.hasPlayedBefore()) {
+            sender.sendMessage(ChatColor.RED + "Player '" + name + "' has never joined this server.");
+            return true;
+        }
+
+        String display = ChatColor.translateAlternateColorCodes('&', trail.getDisplayName());
+        String playerName = offline.getName() != null ? offline.getName() : name;
+        playerData.editAsync(offline.getUniqueId(), uuid -> playerData.unlockTrail(uuid, trail))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        sender.sendMessage(ChatColor.RED + "Could not load " + playerName + "'s data; see console.");
+                    } else {
+                        sender.sendMessage(ChatColor.GREEN + "Unlocked trail '" + display
+                                + ChatColor.GREEN + "' for " + playerName + " (offline).");
+                    }
+                });
+        return true;
+    }
+
+    private boolean handleBudget(CommandSender sender) {
+        if (!sender.hasPermission("elytratrails.admin")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission to use this command.");
+            return true;
+        }
+
+        ParticleBudget budget = plugin.getParticleTask().getBudget();
+        int quota = plugin.getParticleTask().getQuota().getPerPlayerQuota();
+        if (!budget.isEnabled()) {
+            sender.sendMessage(ChatColor.YELLOW + "Particle budget is disabled (no throttling).");
+            return true;
+        }
+
+        ChatColor state = budget.getShedRatio() > 0 ? ChatColor.RED : ChatColor.GREEN;
+        sender.sendMessage(ChatColor.GOLD + "── ElytraTrails particle budget ──");
+        sender.sendMessage(ChatColor.GRAY + "MSPT: " + ChatColor.WHITE + String.format("%.1f", budget.getLastMspt())
+                + ChatColor.GRAY + " / target " + ChatColor.WHITE + String.format("%.1f", budget.getTargetMspt()));
+        sender.sendMessage(ChatColor.GRAY + "Scale: " + state + String.format("%.0f%%", budget.getScale() * 100)
+                + ChatColor.GRAY + "  Shed: " + state + String.format("%.0f%%", budget.getShedRatio() * 100));
+        sender.sendMessage(ChatColor.GRAY + "Budget: " + ChatColor.WHITE + budget.getTickBudget() + " particles/tick"
+                + ChatColor.GRAY + "  Last tick: " + ChatColor.WHITE + budget.getLastSpawned() + " spawned, "
+                + budget.getLastSkipped() + " skipped");
+        sender.sendMessage(ChatColor.GRAY + "Interval stretch: " + ChatColor.WHITE + "x" + budget.getIntervalStretch()
+                + ChatColor.GRAY + "  Shedding priority below: " + ChatColor.WHITE + budget.getShedPriority());
+        sender.sendMessage(ChatColor.GRAY + "Per-player quota: " + ChatColor.WHITE
+                + (quota == Integer.MAX_VALUE ? "unlimited" : quota + " particles/tick"));
+        EmitterScheduler scheduler = plugin.getParticleTask().getScheduler();
+        sender.sendMessage(ChatColor.GRAY + "Emitter load: " + ChatColor.WHITE
+                + String.format("%.0f", scheduler.getLoadMean()) + ChatColor.GRAY + " avg, "
+                + ChatColor.WHITE + String.format("%.0f", Math.sqrt(scheduler.getLoadVariance())) + ChatColor.GRAY + " σ, "
+                + ChatColor.WHITE + scheduler.getLoadPeak() + ChatColor.GRAY + " peak per tick"
+                + "  Stagger: " + (scheduler.isStagger() ? ChatColor.GREEN + "on" : ChatColor.YELLOW + "off"));
+        sender.sendMessage(ChatColor.GRAY + "Gliders: " + ChatColor.WHITE + plugin.getParticleTask().getGliderCount()
+                + ChatColor.GRAY + "  Task: " + (plugin.getParticleTask().isRunning()
+                ? ChatColor.GREEN + "running" : ChatColor.YELLOW + "suspended")
+                + ChatColor.GRAY + "  Render: " + ChatColor.WHITE + (plugin.getParticleTask().getPipeline() != null
+                ? "async (" + plugin.getParticleTask().getPipeline().getThreads() + " threads)" : "main thread"));
+        return true;
+    }
+
     // ── Tab completion ──────────────────────────────────────
 
     @Override
@@ -131,6 +216,8 @@ public class ElytraCommand implements TabExecutor {
             if (sender.hasPermission("elytratrails.admin")) {
                 subs.add("reload");
                 subs.add("give");
+                subs.add("budget");
+                subs.add("data");
             }
             return filterCompletions(subs, args[0]);
         }
@@ -142,6 +229,10 @@ public class ElytraCommand implements TabExecutor {
             );
         }
 
+        if (args.length >= 2 && args[0].equalsIgnoreCase("data") && sender.hasPermission("elytratrails.admin")) {
+            return filterCompletions(dataCommand.complete(args), args[args.length - 1]);
+        }
+
         if (args.length == 3 && args[0].equalsIgnoreCase("give") && sender.hasPermission("elytratrails.admin")) {
             return filterCompletions(new ArrayList<>(trailManager.getTrailIds()), args[2]);
         }
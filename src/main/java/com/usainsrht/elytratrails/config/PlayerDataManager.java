@@ -1,67 +1,297 @@
 package com.usainsrht.elytratrails.config;
 
 import com.usainsrht.elytratrails.ElytraTrails;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.YamlConfiguration;
+import com.usainsrht.elytratrails.model.Trail;
+import com.usainsrht.elytratrails.model.TrailBits;
+import com.usainsrht.elytratrails.storage.PlayerJournal;
+import com.usainsrht.elytratrails.storage.PlayerRecord;
+import com.usainsrht.elytratrails.storage.PlayerStorage;
+import com.usainsrht.elytratrails.storage.ShardedPlayerStorage;
+import com.usainsrht.elytratrails.storage.SqlitePlayerStorage;
+import com.usainsrht.elytratrails.storage.StorageMigration;
+import com.usainsrht.elytratrails.storage.StorageState;
+import com.usainsrht.elytratrails.storage.TrailIndex;
+import com.usainsrht.elytratrails.storage.YamlPlayerReader;
+import com.usainsrht.elytratrails.storage.YamlPlayerStorage;
+import com.usainsrht.elytratrails.storage.YamlPlayerWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 /**
- * Manages per-player data: active trail and list of unlocked trails.
- * Persisted to players.yml in the plugin data folder.
+ * Manages per-player data: active trail and unlocked trails. Persisted
+ * through a {@link PlayerStorage} chosen by {@code storage.backend}:
+ * {@code sharded} (one file per player, the default), {@code sqlite}
+ * (embedded database) or {@code yaml} (the legacy single players.yml).
+ * The backend in use is recorded in {@link StorageState}. When
+ * {@code storage.backend} names a different one on startup, every player
+ * is copied over from the recorded backend before anything is written.
+ * When a non-yaml backend starts for the first time next to an old
+ * players.yml, the file is migrated once and renamed to
+ * players.yml.migrated; a players.yml written later (e.g. an export) is
+ * never taken for legacy data.
+ *
+ * <p>Unlocks are held as {@link TrailBits} keyed by each trail's stable
+ * {@link Trail#getIndex() index}; an unlock swaps in a new immutable
+ * instance, so readers never lock.
+ *
+ * <p>Thread-safe: the in-memory maps are concurrent so region threads and
+ * render workers can read and update them.
+ *
+ * <p>Data is loaded on demand, off the main thread: during pre-login for
+ * joining players and through {@link #editAsync} for offline ones. Online
+ * players stay in memory; everyone else (players who quit, offline edits,
+ * logins that never completed) is kept in a retention cache bounded by
+ * {@code storage.cache.max-players} and {@code storage.cache.retain-seconds}
+ * so quick rejoins do not touch the disk.
+ *
+ * <p>Writes are write-behind. Every change records an immutable
+ * {@link PlayerRecord} snapshot of the player as dirty; a background writer
+ * coalesces the snapshots and hands them to the storage every
+ * {@code storage.flush-interval-seconds} and on shutdown. Backends replace
+ * files atomically, so a crash mid-flush leaves the previous data intact.
+ *
+ * <p>With {@code storage.journal} enabled each snapshot is also appended
+ * to a {@link PlayerJournal}, so changes (purchases in particular) survive
+ * a crash between flushes. Every flush compacts the journal into the
+ * store, and segments left by a crash are replayed into the store on
+ * startup.
  */
 public class PlayerDataManager {
 
+    /** Names accepted by {@code storage.backend}. */
+    public static final List<String> BACKENDS = List.of("yaml", "sharded", "sqlite");
+
+    /** Imported players between flushes, bounding what an import keeps in memory. */
+    private static final int IMPORT_BATCH = 500;
+    /** How long a pre-login load stays pinned if the player never joins. */
+    private static final long LOGIN_PIN_MILLIS = 60_000;
+
     private final ElytraTrails plugin;
-    private final File file;
-    private YamlConfiguration config;
+    private final PlayerStorage storage;
+
+    /** UUID → active trail id (absent = none) */
+    private final Map<UUID, String> activeTrails = new ConcurrentHashMap<>();
+    /** UUID → unlocked trails; present for every loaded player */
+    private final Map<UUID, TrailBits> unlockedTrails = new ConcurrentHashMap<>();
+
+    /** Changes not yet in the store: latest snapshot per player. */
+    private final Map<UUID, PlayerRecord> dirty = new ConcurrentHashMap<>();
 
-    /** UUID → active trail id (null = none) */
-    private final Map<UUID, String> activeTrails = new HashMap<>();
-    /** UUID → set of unlocked trail ids */
-    private final Map<UUID, Set<String>> unlockedTrails = new HashMap<>();
+    /** Null when {@code storage.journal} is off. */
+    private final PlayerJournal journal;
+    /** Keeps snapshot, dirty entry and journal order the same per change. */
+    private final Object markLock = new Object();
+    private final AtomicBoolean journalWarned = new AtomicBoolean();
 
-    public PlayerDataManager(ElytraTrails plugin) {
+    private final ScheduledExecutorService writer;
+    private final ExecutorService loader;
+
+    /** Loads in progress, so concurrent requests for a player share one read. */
+    private final Map<UUID, CompletableFuture<Void>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Players in memory who are not online → when they were retained,
+     * oldest first. Also the lock that orders loading, retaining and
+     * eviction against players coming online.
+     */
+    private final LinkedHashMap<UUID, Long> retained = new LinkedHashMap<>();
+    private final Set<UUID> online = ConcurrentHashMap.newKeySet();
+    /**
+     * Players loaded during pre-login who have not joined yet → when they
+     * were pinned. Guarded by {@link #retained}; exempt from both retention
+     * bounds so the join never has to load them again on the main thread.
+     */
+    private final Map<UUID, Long> pendingLogins = new HashMap<>();
+    private final long retainMillis;
+    private final int maxRetained;
+
+    public PlayerDataManager(ElytraTrails plugin) throws IOException {
         this.plugin = plugin;
-        this.file = new File(plugin.getDataFolder(), "players.yml");
-        loadAll();
+        this.storage = openStorage();
+        plugin.getLogger().info("Using " + storage.getName() + " player storage.");
+        this.journal = plugin.getConfig().getBoolean("storage.journal", true) ? openJournal() : null;
+
+        long interval = Math.max(1, plugin.getConfig().getLong("storage.flush-interval-seconds", 30));
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ElytraTrails-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.SECONDS);
+
+        this.retainMillis = Math.max(0, plugin.getConfig().getLong("storage.cache.retain-seconds", 300)) * 1000L;
+        this.maxRetained = Math.max(0, plugin.getConfig().getInt("storage.cache.max-players", 1000));
+        writer.scheduleWithFixedDelay(this::expireRetained, 5, 5, TimeUnit.SECONDS);
+
+        this.loader = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "ElytraTrails-Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     // ── Public API ──────────────────────────────────────────
 
-    public void load(UUID uuid) {
-        String path = uuid.toString();
-        if (config.contains(path)) {
-            activeTrails.put(uuid, config.getString(path + ".active", null));
-            unlockedTrails.put(uuid, new HashSet<>(config.getStringList(path + ".unlocked")));
-        } else {
-            activeTrails.put(uuid, null);
-            unlockedTrails.put(uuid, new HashSet<>());
+    /**
+     * Bring a player's data into memory on the loader threads. Completes
+     * immediately if it is already loaded; completes exceptionally if the
+     * storage could not be read. Until the player
+     * is {@linkplain #markOnline online} the data sits in the retention cache.
+     */
+    public CompletableFuture<Void> loadAsync(UUID uuid) {
+        if (isLoaded(uuid)) return CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> load = loading.computeIfAbsent(uuid, k -> CompletableFuture.runAsync(() -> {
+            PlayerRecord record = read(k);
+            synchronized (retained) {
+                install(k, record);
+            }
+        }, loader));
+        load.whenComplete((ignored, error) -> {
+            loading.remove(uuid, load);
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                plugin.getLogger().severe(cause.getMessage());
+            }
+        });
+        return load;
+    }
+
+    /**
+     * {@link #loadAsync Load} a player who is logging in and pin their data
+     * until they {@linkplain #markOnline join}, regardless of the retention
+     * bounds. A pin whose login never completes lapses after
+     * {@link #LOGIN_PIN_MILLIS}.
+     */
+    public CompletableFuture<Void> loadForLogin(UUID uuid) {
+        synchronized (retained) {
+            pendingLogins.put(uuid, System.currentTimeMillis());
         }
+        CompletableFuture<Void> load = loadAsync(uuid);
+        load.whenComplete((ignored, error) -> {
+            if (error != null) unpin(uuid);
+        });
+        return load;
     }
 
+    /**
+     * Apply a change to a player who may be offline: load them if needed,
+     * then run the edit while they cannot be evicted. The player stays in
+     * the retention cache afterwards and the change is flushed as usual.
+     *
+     * @param edit called with the UUID on a loader thread; use the normal
+     *             setters (e.g. {@link #unlockTrail}) inside it
+     */
+    public CompletableFuture<Void> editAsync(UUID uuid, Consumer<UUID> edit) {
+        return editDurablyAsync(uuid, u -> {
+            edit.accept(u);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Like {@link #editAsync}, but complete only once the change is durable.
+     *
+     * @param edit called like for {@link #editAsync}; returns the setter's
+     *             durability future (e.g. from {@link #unlockTrail})
+     */
+    public CompletableFuture<Void> editDurablyAsync(UUID uuid, Function<UUID, CompletableFuture<Void>> edit) {
+        return loadAsync(uuid).thenComposeAsync(ignored -> {
+            synchronized (retained) {
+                // Evicted between the load and now? Reload under the lock (rare).
+                if (!isLoaded(uuid)) install(uuid, read(uuid));
+                CompletableFuture<Void> written = edit.apply(uuid);
+                if (!online.contains(uuid)) retain(uuid);
+                return written;
+            }
+        }, loader);
+    }
+
+    /**
+     * Pin a player's data in memory while they are online. Loads
+     * synchronously if pre-login loading did not happen (e.g. the plugin
+     * was enabled while they were connected).
+     */
+    public void markOnline(UUID uuid) {
+        synchronized (retained) {
+            online.add(uuid);
+            pendingLogins.remove(uuid);
+            retained.remove(uuid);
+        }
+        if (!isLoaded(uuid)) {
+            try {
+                loadAsync(uuid).join();
+            } catch (CompletionException e) {
+                // already logged by loadAsync
+            }
+        }
+    }
+
+    public boolean isLoaded(UUID uuid) {
+        return unlockedTrails.containsKey(uuid);
+    }
+
+    /**
+     * Queue a player's current data for the next flush.
+     */
     public void save(UUID uuid) {
-        String path = uuid.toString();
-        config.set(path + ".active", activeTrails.get(uuid));
-        config.set(path + ".unlocked", new ArrayList<>(getUnlockedTrails(uuid)));
-        saveFile();
+        markDirty(uuid);
     }
 
+    /**
+     * Flush all pending changes and stop the background writer. Blocks
+     * until the file is written; call once, on disable.
+     */
     public void saveAll() {
-        for (UUID uuid : activeTrails.keySet()) {
-            String path = uuid.toString();
-            config.set(path + ".active", activeTrails.get(uuid));
-            config.set(path + ".unlocked", new ArrayList<>(getUnlockedTrails(uuid)));
+        loader.shutdown();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for the player data writer.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not close the player data journal: " + e.getMessage());
+            }
+        }
+        try {
+            storage.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not close " + storage.getName() + " player storage: " + e.getMessage());
         }
-        saveFile();
     }
 
+    /**
+     * A player went offline: move their data to the retention cache. Their
+     * last change is already queued, so nothing is written here.
+     */
     public void unload(UUID uuid) {
-        save(uuid);
-        activeTrails.remove(uuid);
-        unlockedTrails.remove(uuid);
+        synchronized (retained) {
+            online.remove(uuid);
+            pendingLogins.remove(uuid);
+            if (isLoaded(uuid)) retain(uuid);
+        }
     }
 
     // ── Active trail ────────────────────────────────────────
@@ -71,52 +301,407 @@ public class PlayerDataManager {
     }
 
     public void setActiveTrail(UUID uuid, String trailId) {
-        activeTrails.put(uuid, trailId);
+        setActive(uuid, trailId);
+        markDirty(uuid);
     }
 
     // ── Unlocked trails ─────────────────────────────────────
 
-    public Set<String> getUnlockedTrails(UUID uuid) {
-        return unlockedTrails.computeIfAbsent(uuid, k -> new HashSet<>());
+    public TrailBits getUnlockedTrails(UUID uuid) {
+        return unlockedTrails.getOrDefault(uuid, TrailBits.EMPTY);
     }
 
-    public boolean hasUnlocked(UUID uuid, String trailId) {
-        return getUnlockedTrails(uuid).contains(trailId);
+    public boolean hasUnlocked(UUID uuid, Trail trail) {
+        return getUnlockedTrails(uuid).contains(trail.getIndex());
     }
 
-    public void unlockTrail(UUID uuid, String trailId) {
-        getUnlockedTrails(uuid).add(trailId);
+    /**
+     * @return completes once the unlock is durable (journaled, or flushed
+     *         with the journal off), or straight away if the trail was
+     *         already unlocked; exceptionally if it could not be written
+     */
+    public CompletableFuture<Void> unlockTrail(UUID uuid, Trail trail) {
+        int index = trail.getIndex();
+        TrailBits before = unlockedTrails.getOrDefault(uuid, TrailBits.EMPTY);
+        TrailBits after = unlockedTrails.merge(uuid, TrailBits.EMPTY.with(index), (bits, ignored) -> bits.with(index));
+        if (after.equals(before)) return CompletableFuture.completedFuture(null);
+        return written(uuid);
     }
 
-    // ── Internal ────────────────────────────────────────────
+    /**
+     * Take back an unlocked trail, e.g. a purchase whose unlock could not be
+     * made durable and was refunded.
+     *
+     * @return completes once the change is durable, like {@link #unlockTrail}
+     */
+    public CompletableFuture<Void> revokeTrail(UUID uuid, Trail trail) {
+        int index = trail.getIndex();
+        TrailBits before = unlockedTrails.get(uuid);
+        if (before == null || !before.contains(index)) return CompletableFuture.completedFuture(null);
+        unlockedTrails.computeIfPresent(uuid, (ignored, bits) -> bits.without(index));
+        return written(uuid);
+    }
 
-    private void loadAll() {
-        if (!file.exists()) {
+    /**
+     * Replace players' data with imported records (e.g. an export). Runs on
+     * the writer thread, so no flush overlaps it, and feeds every record
+     * through the normal change path: loaded players are updated in place,
+     * each record is marked dirty and journaled, and the import is flushed
+     * every few hundred players. Cached copies, pending changes and journal
+     * replay therefore never put older data back over an imported player.
+     *
+     * @param progress called with the running total after each flush; may be null
+     * @return completes with the number of players imported, or
+     *         exceptionally (with an {@link UncheckedIOException}) if the
+     *         source could not be read; players read before that are kept
+     */
+    public CompletableFuture<Integer> importAsync(StorageMigration.Source source, IntConsumer progress) {
+        return CompletableFuture.supplyAsync(() -> {
+            int[] count = {0};
             try {
-                file.getParentFile().mkdirs();
-                file.createNewFile();
+                source.forEach((uuid, record) -> {
+                    synchronized (retained) {
+                        if (isLoaded(uuid)) {
+                            setActive(uuid, record.activeTrail());
+                            unlockedTrails.put(uuid, record.unlocked());
+                            markDirty(uuid);
+                        } else {
+                            markDirty(uuid, record);
+                        }
+                    }
+                    if (++count[0] % IMPORT_BATCH == 0) {
+                        flush();
+                        if (progress != null) progress.accept(count[0]);
+                    }
+                });
             } catch (IOException e) {
-                plugin.getLogger().severe("Could not create players.yml: " + e.getMessage());
+                throw new UncheckedIOException(e);
+            } finally {
+                flush();
             }
+            return count[0];
+        }, writer);
+    }
+
+    /**
+     * Run a flush on the writer thread now, so the store holds every change
+     * made before this call once the future completes.
+     */
+    public CompletableFuture<Void> flushAsync() {
+        return CompletableFuture.runAsync(this::flush, writer);
+    }
+
+    public PlayerStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * @return number of players with changes not yet written to disk
+     */
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * @return number of offline players currently held in memory
+     */
+    public int getRetainedCount() {
+        synchronized (retained) {
+            return retained.size();
         }
-        config = YamlConfiguration.loadConfiguration(file);
+    }
 
-        for (String key : config.getKeys(false)) {
-            try {
-                UUID uuid = UUID.fromString(key);
-                load(uuid);
-            } catch (IllegalArgumentException ignored) {
-                // skip invalid keys
+    // ── Internal ────────────────────────────────────────────
+
+    /**
+     * Read a player from pending changes or storage.
+     *
+     * @throws UncheckedIOException if the storage could not be read
+     */
+    private PlayerRecord read(UUID uuid) {
+        // Rejoined before the last change was flushed?
+        PlayerRecord record = dirty.get(uuid);
+        if (record != null) return record;
+        try {
+            return storage.load(uuid);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load player data for " + uuid + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Put a freshly read player into memory unless they are already there.
+     * Caller holds the {@link #retained} lock.
+     */
+    private void install(UUID uuid, PlayerRecord record) {
+        if (isLoaded(uuid)) return;
+        // Changed (e.g. imported) after the caller read the store?
+        PlayerRecord pending = dirty.get(uuid);
+        if (pending != null) record = pending;
+        if (record != null) {
+            setActive(uuid, record.activeTrail());
+            unlockedTrails.put(uuid, record.unlocked());
+        } else {
+            activeTrails.remove(uuid);
+            unlockedTrails.put(uuid, TrailBits.EMPTY);
+        }
+        if (!online.contains(uuid)) retain(uuid);
+    }
+
+    /**
+     * (Re)start a player's retention period and evict the oldest entries
+     * beyond the size bound, skipping pending logins. Caller holds the
+     * {@link #retained} lock.
+     */
+    private void retain(UUID uuid) {
+        retained.remove(uuid);
+        retained.put(uuid, System.currentTimeMillis());
+        Iterator<UUID> it = retained.keySet().iterator();
+        while (retained.size() > maxRetained && it.hasNext()) {
+            UUID oldest = it.next();
+            if (pendingLogins.containsKey(oldest)) continue;
+            it.remove();
+            evict(oldest);
+        }
+    }
+
+    /**
+     * Evict retained players whose period is over, and lift pins of logins
+     * that never completed. Runs on the writer thread.
+     */
+    private void expireRetained() {
+        long now = System.currentTimeMillis();
+        long cutoff = now - retainMillis;
+        synchronized (retained) {
+            pendingLogins.values().removeIf(pinned -> pinned <= now - LOGIN_PIN_MILLIS);
+            Iterator<Map.Entry<UUID, Long>> it = retained.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<UUID, Long> entry = it.next();
+                if (entry.getValue() > cutoff) break;
+                if (pendingLogins.containsKey(entry.getKey())) continue;
+                it.remove();
+                evict(entry.getKey());
+            }
+        }
+    }
+
+    private void unpin(UUID uuid) {
+        synchronized (retained) {
+            pendingLogins.remove(uuid);
+        }
+    }
+
+    /**
+     * Drop an offline player from memory. Unflushed changes stay in
+     * {@link #dirty}, which {@link #read} checks first.
+     */
+    private void evict(UUID uuid) {
+        if (online.contains(uuid)) return;
+        activeTrails.remove(uuid);
+        unlockedTrails.remove(uuid);
+    }
+
+    private void setActive(UUID uuid, String trailId) {
+        if (trailId == null) {
+            activeTrails.remove(uuid);
+        } else {
+            activeTrails.put(uuid, trailId);
+        }
+    }
+
+    private void markDirty(UUID uuid) {
+        synchronized (markLock) {
+            markDirty(uuid, new PlayerRecord(activeTrails.get(uuid), getUnlockedTrails(uuid)));
+        }
+    }
+
+    /**
+     * Mark a player dirty and report when that change is durable: once its
+     * journal entry is forced to disk, or with the journal off once a flush
+     * has written it. Completes exceptionally if it could not be.
+     */
+    private CompletableFuture<Void> written(UUID uuid) {
+        PlayerRecord record;
+        CompletableFuture<Void> append;
+        synchronized (markLock) {
+            record = new PlayerRecord(activeTrails.get(uuid), getUnlockedTrails(uuid));
+            append = markDirty(uuid, record);
+        }
+        if (append != null) return append;
+        return flushAsync().thenRun(() -> {
+            // Still the pending snapshot after a flush: the flush failed
+            if (dirty.get(uuid) == record) {
+                throw new IllegalStateException("Could not save player data for " + uuid);
+            }
+        });
+    }
+
+    /**
+     * Queue a snapshot for the next flush and the journal.
+     */
+    /**
+     * @return the journal append, or null when the journal is off
+     */
+    private CompletableFuture<Void> markDirty(UUID uuid, PlayerRecord record) {
+        synchronized (markLock) {
+            // Dirty first: a flush that seals the journal must already see this change
+            dirty.put(uuid, record);
+            if (journal == null) return null;
+            CompletableFuture<Void> append = journal.append(uuid, record);
+            append.whenComplete((ignored, error) -> {
+                if (error == null) {
+                    journalWarned.set(false);
+                } else if (journalWarned.compareAndSet(false, true)) {
+                    plugin.getLogger().severe("Could not write the player data journal: " + error.getMessage()
+                            + " (changes are kept until the next flush)");
+                }
+            });
+            return append;
+        }
+    }
+
+    /**
+     * Open the journal and replay what a crash left behind into the store.
+     */
+    private PlayerJournal openJournal() throws IOException {
+        PlayerJournal opened = new PlayerJournal(plugin.getDataFolder().toPath().resolve("journal"),
+                plugin.getTrailManager().getIndex());
+        Map<UUID, PlayerRecord> replayed = opened.replay();
+        if (!replayed.isEmpty()) {
+            storage.save(replayed);
+            plugin.getLogger().info("Recovered " + replayed.size() + " player(s) from the journal.");
+        }
+        opened.deleteSealed();
+        return opened;
+    }
+
+    private PlayerStorage openStorage() throws IOException {
+        Path folder = plugin.getDataFolder().toPath();
+        File legacy = new File(plugin.getDataFolder(), "players.yml");
+        String recorded = StorageState.read(folder);
+        String backend = plugin.getConfig().getString("storage.backend", "sharded").toLowerCase();
+        if (!BACKENDS.contains(backend)) {
+            plugin.getLogger().warning("Unknown storage.backend '" + backend + "', using 'sharded'.");
+            backend = "sharded";
+        }
+
+        if (recorded != null && !recorded.equals(backend)) {
+            switchBackend(recorded, backend);
+        }
+        PlayerStorage storage = openBackend(plugin, backend);
+        // Only before any backend was recorded: afterwards players.yml is not ours to import
+        if (recorded == null && !backend.equals("yaml") && legacy.isFile()) {
+            migrateLegacy(legacy, storage);
+        }
+        if (!backend.equals(recorded)) {
+            StorageState.write(folder, backend);
+        }
+        return storage;
+    }
+
+    /**
+     * Fill a newly configured backend from the one recorded as live, before
+     * it receives any writes. The old data is left in place; the switch is
+     * recorded only afterwards, so an interrupted copy is redone on the
+     * next start.
+     */
+    private void switchBackend(String from, String to) throws IOException {
+        plugin.getLogger().info("storage.backend changed from " + from + " to " + to + "; copying player data...");
+        Path folder = plugin.getDataFolder().toPath();
+        TrailIndex index = plugin.getTrailManager().getIndex();
+
+        PlayerStorage old = null;
+        StorageMigration.Source source;
+        if (from.equals("yaml")) {
+            // Streamed; the yaml backend would parse the whole file first
+            Path file = folder.resolve("players.yml");
+            source = Files.isRegularFile(file) ? new YamlPlayerReader(file, index) : action -> { };
+        } else {
+            old = openBackend(plugin, from);
+            if (old == null) throw new IOException("Unknown backend '" + from + "' in storage-backend.txt");
+            source = old::forEach;
+        }
+
+        int count;
+        try {
+            if (to.equals("yaml")) {
+                try (YamlPlayerWriter writer = new YamlPlayerWriter(folder.resolve("players.yml"), index)) {
+                    count = StorageMigration.copy(source, writer, null);
+                }
+            } else {
+                PlayerStorage target = openBackend(plugin, to);
+                try {
+                    count = StorageMigration.copy(source, target, null);
+                } finally {
+                    target.close();
+                }
+            }
+        } finally {
+            if (old != null) old.close();
+        }
+        plugin.getLogger().info("Copied " + count + " players from " + from + " to " + to
+                + " storage; the " + from + " data was left in place.");
+    }
+
+    /**
+     * Open a storage backend by name in its default location.
+     *
+     * @return the backend, or null if the name is unknown
+     */
+    public static PlayerStorage openBackend(ElytraTrails plugin, String name) throws IOException {
+        Path folder = plugin.getDataFolder().toPath();
+        TrailIndex index = plugin.getTrailManager().getIndex();
+        return switch (name.toLowerCase()) {
+            case "yaml" -> new YamlPlayerStorage(folder.resolve("players.yml").toFile(), index);
+            case "sharded" -> new ShardedPlayerStorage(folder.resolve("players"), index);
+            case "sqlite" -> {
+                Files.createDirectories(folder);
+                yield new SqlitePlayerStorage(folder.resolve("players.db"), index);
             }
+            default -> null;
+        };
+    }
+
+    /**
+     * One-shot copy of players.yml into a newer backend, streamed so the
+     * file is never held in memory. The old file is kept as
+     * players.yml.migrated.
+     */
+    private void migrateLegacy(File legacy, PlayerStorage target) throws IOException {
+        plugin.getLogger().info("Migrating players.yml to " + target.getName() + " storage...");
+        int count = StorageMigration.copy(
+                new YamlPlayerReader(legacy.toPath(), plugin.getTrailManager().getIndex()), target, null);
+
+        File done = new File(legacy.getParentFile(), "players.yml.migrated");
+        if (!legacy.renameTo(done)) {
+            throw new IOException("Migrated " + count + " players but could not rename players.yml");
         }
+        plugin.getLogger().info("Migrated " + count + " players; the old file is now " + done.getName() + ".");
     }
 
-    private void saveFile() {
+    /**
+     * Hand every pending snapshot to the storage and compact the journal.
+     * Runs on the writer thread (and once more on shutdown).
+     */
+    private void flush() {
+        if (dirty.isEmpty()) return;
+
+        Map<UUID, PlayerRecord> batch;
         try {
-            config.save(file);
+            // Everything in the sealed segments is also in the batch below
+            if (journal != null) journal.rotate();
+            batch = new HashMap<>(dirty);
+            storage.save(batch);
+            if (journal != null) journal.deleteSealed();
         } catch (IOException e) {
-            plugin.getLogger().severe("Could not save players.yml: " + e.getMessage());
+            // Keep the batch dirty (and the journal); the next flush retries it
+            plugin.getLogger().severe("Could not save player data: " + e.getMessage());
+            return;
+        }
+
+        // Only clear snapshots that were not replaced while writing
+        for (Map.Entry<UUID, PlayerRecord> entry : batch.entrySet()) {
+            dirty.remove(entry.getKey(), entry.getValue());
         }
     }
 }
-
@@ -1,23 +1,40 @@
 package com.usainsrht.elytratrails.config;
 
 import com.usainsrht.elytratrails.ElytraTrails;
+import com.usainsrht.elytratrails.model.AnimationBaker;
 import com.usainsrht.elytratrails.model.Trail;
+import com.usainsrht.elytratrails.storage.TrailIndex;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 /**
  * Loads and manages all Trail definitions from trails.yml.
+ *
+ * <p>Every trail id gets a stable number from the {@link TrailIndex}
+ * (trail-index.yml), assigned the first time the id is seen, which player
+ * data uses to store unlocks as bits.
+ *
+ * <p>A reload builds a fresh map and publishes it in one write, so readers
+ * on other threads (render workers, region threads) always see either the
+ * old or the new set of trails, never a half-loaded one.
  */
 public class TrailManager {
 
     private final ElytraTrails plugin;
-    private final Map<String, Trail> trails = new LinkedHashMap<>();
+    private final TrailIndex index;
+    private volatile Map<String, Trail> trails = Collections.emptyMap();
+    /** The same trails in definition order; a new list per reload. */
+    private volatile List<Trail> trailList = Collections.emptyList();
+    /** Loaded trails by index; null where a number has no loaded trail. */
+    private volatile Trail[] byIndex = new Trail[0];
 
-    public TrailManager(ElytraTrails plugin) {
+    public TrailManager(ElytraTrails plugin) throws IOException {
         this.plugin = plugin;
+        this.index = new TrailIndex(plugin.getDataFolder().toPath().resolve("trail-index.yml"));
         loadTrails();
     }
 
@@ -25,7 +42,7 @@ public class TrailManager {
      * (Re)load all trails from trails.yml.
      */
     public void loadTrails() {
-        trails.clear();
+        Map<String, Trail> loaded = new LinkedHashMap<>();
 
         // Save default if not present
         plugin.saveResource("trails.yml", false);
@@ -36,21 +53,42 @@ public class TrailManager {
         ConfigurationSection trailsSection = config.getConfigurationSection("trails");
         if (trailsSection == null) {
             plugin.getLogger().warning("No 'trails' section found in trails.yml!");
+            trails = Collections.emptyMap();
+            trailList = Collections.emptyList();
+            byIndex = new Trail[0];
             return;
         }
 
+        try {
+            index.assignAll(trailsSection.getKeys(false));
+        } catch (IOException e) {
+            // Keep the previous trails: without numbers nothing can be stored safely
+            plugin.getLogger().severe("Could not update trail-index.yml, trails not reloaded: " + e.getMessage());
+            return;
+        }
+
+        AnimationBaker baker = AnimationBaker.fromConfig(plugin.getConfig().getConfigurationSection("animation"));
+
         for (String key : trailsSection.getKeys(false)) {
             ConfigurationSection sec = trailsSection.getConfigurationSection(key);
             if (sec == null) continue;
             try {
-                Trail trail = Trail.fromConfig(key, sec);
-                trails.put(key, trail);
+                Trail trail = Trail.fromConfig(key, index.indexOf(key), sec, baker);
+                loaded.put(key, trail);
             } catch (Exception e) {
                 plugin.getLogger().warning("Failed to load trail '" + key + "': " + e.getMessage());
             }
         }
 
-        plugin.getLogger().info("Loaded " + trails.size() + " trail(s).");
+        Trail[] indexed = new Trail[index.size()];
+        for (Trail trail : loaded.values()) {
+            indexed[trail.getIndex()] = trail;
+        }
+        byIndex = indexed;
+        trailList = List.copyOf(loaded.values());
+        trails = Collections.unmodifiableMap(loaded);
+        plugin.getLogger().info("Loaded " + loaded.size() + " trail(s) ("
+                + (baker.getBakedBytes() / 1024) + " KB of baked animation frames).");
     }
 
     /**
@@ -61,10 +99,22 @@ public class TrailManager {
     }
 
     /**
-     * Get all loaded trails in definition order.
+     * Get a loaded trail by its stable number.
+     *
+     * @return the trail, or null if none with that number is loaded
      */
-    public Collection<Trail> getTrails() {
-        return Collections.unmodifiableCollection(trails.values());
+    public Trail getTrail(int index) {
+        Trail[] current = byIndex;
+        return index >= 0 && index < current.length ? current[index] : null;
+    }
+
+    /**
+     * Get all loaded trails in definition order. The list is immutable and
+     * replaced (not changed) by a reload, so callers may compare it by
+     * identity to detect one.
+     */
+    public List<Trail> getTrails() {
+        return trailList;
     }
 
     /**
@@ -73,5 +123,9 @@ public class TrailManager {
     public Set<String> getTrailIds() {
         return Collections.unmodifiableSet(trails.keySet());
     }
+
+    public TrailIndex getIndex() {
+        return index;
+    }
 }
 
@@ -0,0 +1,175 @@
+package com.usainsrht.elytratrails.economy;
+
+import com.usainsrht.elytratrails.ElytraTrails;
+import com.usainsrht.elytratrails.config.PlayerDataManager;
+import com.usainsrht.elytratrails.model.Trail;
+import org.bukkit.entity.Player;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Runs trail purchases off the main thread, so a slow (database-backed)
+ * economy never stalls a tick.
+ *
+ * <p>A purchase in flight is identified by its (player, trail) key; further
+ * clicks on the same trail while it runs are refused, so a double-click
+ * cannot charge twice. The key is released only once the result has been
+ * applied on the player's own scheduler, and the worker re-checks ownership
+ * before charging, so a trail is never paid for after it was unlocked.
+ *
+ * <p>Economy calls run on one worker thread, one at a time, since Vault
+ * providers are not required to be thread-safe among themselves. The
+ * unlock is recorded on that thread right after the withdrawal succeeds,
+ * and PURCHASED is only reported once it is durable (its journal entry
+ * forced to disk); if it cannot be made durable the unlock is taken back
+ * and the money refunded.
+ */
+public class PurchaseService {
+
+    public enum Outcome {
+        PURCHASED,
+        /** Unlocked by other means meanwhile; nothing was charged. */
+        ALREADY_OWNED,
+        INSUFFICIENT_FUNDS,
+        /** The economy refused the withdrawal. */
+        DECLINED,
+        /** Something broke; nothing was charged (or it was refunded). */
+        FAILED
+    }
+
+    /** Idempotency key of an in-flight purchase. */
+    private record Key(UUID player, int trail) {
+    }
+
+    private final ElytraTrails plugin;
+    private final VaultHook vaultHook;
+    private final PlayerDataManager playerData;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ElytraTrails-Economy");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Purchases submitted and not yet delivered. Guards against charging
+     * the same (player, trail) twice from repeated clicks; purchases of
+     * different trails are independent and simply queue on the worker.
+     */
+    private final Set<Key> inFlight = ConcurrentHashMap.newKeySet();
+
+    public PurchaseService(ElytraTrails plugin, VaultHook vaultHook, PlayerDataManager playerData) {
+        this.plugin = plugin;
+        this.vaultHook = vaultHook;
+        this.playerData = playerData;
+    }
+
+    /**
+     * Start buying a trail for a player.
+     *
+     * @param onResult run on the player's scheduler with the outcome; not
+     *                 run if the player left meanwhile (the purchase still
+     *                 completes)
+     * @return false if this trail is already being bought for the player
+     */
+    public boolean submit(Player player, Trail trail, Consumer<Outcome> onResult) {
+        Key key = new Key(player.getUniqueId(), trail.getIndex());
+        if (!inFlight.add(key)) return false;
+
+        try {
+            worker.execute(() -> deliver(player, key, process(player, trail), onResult));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return whether this trail is being bought for the player right now
+     */
+    public boolean isPending(UUID uuid, Trail trail) {
+        return inFlight.contains(new Key(uuid, trail.getIndex()));
+    }
+
+    /**
+     * Let queued purchases finish (so their unlocks reach player data
+     * before it is saved), then stop the worker.
+     */
+    public void shutdown() {
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Trail purchases still running at shutdown were abandoned.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ── Internal ────────────────────────────────────────────
+
+    private Outcome process(Player player, Trail trail) {
+        UUID uuid = player.getUniqueId();
+        double price = trail.getPrice();
+        try {
+            if (playerData.hasUnlocked(uuid, trail)) return Outcome.ALREADY_OWNED;
+            if (!vaultHook.has(player, price)) return Outcome.INSUFFICIENT_FUNDS;
+            if (!vaultHook.withdraw(player, price)) return Outcome.DECLINED;
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Economy error while " + player.getName()
+                    + " was buying trail " + trail.getId(), e);
+            return Outcome.FAILED;
+        }
+
+        try {
+            // Only report success once the unlock would survive a crash
+            playerData.editDurablyAsync(uuid, u -> playerData.unlockTrail(u, trail)).join();
+            return Outcome.PURCHASED;
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not record purchase of trail " + trail.getId()
+                    + " for " + player.getName() + "; refunding", e);
+            try {
+                playerData.editAsync(uuid, u -> playerData.revokeTrail(u, trail)).join();
+            } catch (RuntimeException revoke) {
+                plugin.getLogger().log(Level.SEVERE, "Could not take back trail " + trail.getId()
+                        + " from " + player.getName(), revoke);
+            }
+            try {
+                if (!vaultHook.deposit(player, price)) {
+                    plugin.getLogger().severe("Refund of " + price + " to " + player.getName() + " failed.");
+                }
+            } catch (RuntimeException refund) {
+                plugin.getLogger().log(Level.SEVERE, "Refund of " + price + " to " + player.getName()
+                        + " failed", refund);
+            }
+            return Outcome.FAILED;
+        }
+    }
+
+    /**
+     * Hand the outcome to the player's scheduler, releasing the key there
+     * (or straight away if the player is gone or the plugin is stopping).
+     */
+    private void deliver(Player player, Key key, Outcome outcome, Consumer<Outcome> onResult) {
+        Runnable release = () -> inFlight.remove(key);
+        try {
+            if (player.getScheduler().run(plugin, task -> {
+                release.run();
+                onResult.accept(outcome);
+            }, release) != null) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            // Plugin disabled while the purchase ran
+        }
+        release.run();
+    }
+}
@@ -8,6 +8,8 @@ import org.bukkit.plugin.RegisteredServiceProvider;
 /**
  * Optional wrapper around the Vault Economy API.
  * All methods are safe to call even when Vault is not installed.
+ * {@link #has}, {@link #withdraw} and {@link #deposit} may block on the
+ * economy's storage; trail purchases call them from {@link PurchaseService}.
  */
 public class VaultHook {
 
@@ -46,6 +48,15 @@ public class VaultHook {
         return economy.withdrawPlayer(player, amount).transactionSuccess();
     }
 
+    /**
+     * Give the given amount to the player (refunds).
+     * @return true if the transaction succeeded.
+     */
+    public boolean deposit(Player player, double amount) {
+        if (!isEnabled()) return false;
+        return economy.depositPlayer(player, amount).transactionSuccess();
+    }
+
     /**
      * Format a monetary amount using Vault's formatter.
      */
@@ -0,0 +1,348 @@
+package com.usainsrht.elytratrails.gui;
+
+import com.usainsrht.elytratrails.economy.VaultHook;
+import com.usainsrht.elytratrails.model.Trail;
+import com.usainsrht.elytratrails.model.TrailType;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Search, filter and sort indexes over one trail list, built once per list
+ * (like {@link TrailItemTemplates}, which it owns) so the GUI never scans or
+ * re-sorts the catalog to show a page.
+ *
+ * <p>Trails are referred to by their position in the source list. The
+ * catalog keeps:
+ * <ul>
+ *   <li>a position bitmask and position array per {@link TrailType} and per
+ *       price band (filter tabs)</li>
+ *   <li>positions ordered by name and by price (sort orders)</li>
+ *   <li>colour-stripped lower-case names in name order, so a name prefix
+ *       search is two binary searches yielding a contiguous range</li>
+ * </ul>
+ * {@link #select} combines them into a {@link View}. Single-index results
+ * (a tab in default order, a search in name order, no filter at all) are
+ * slices of the index arrays themselves; only combinations materialize a
+ * small position array. Owned/locked depend on the player, so the caller
+ * passes a mask of owned positions.
+ */
+final class TrailCatalog {
+
+    enum Sort {
+        DEFAULT("Default"),
+        NAME("Name"),
+        PRICE("Price");
+
+        private final String label;
+
+        Sort(String label) {
+            this.label = label;
+        }
+
+        Sort next() {
+            return values()[(ordinal() + 1) % values().length];
+        }
+    }
+
+    private enum Kind { ALL, OWNED, LOCKED, TYPE, PRICE }
+
+    /** One filter tab; {@code value} is the type ordinal or price band. */
+    private record Filter(Kind kind, int value, String label) {
+    }
+
+    /**
+     * Trails matching a query, in display order: a slice of a position
+     * array, or of the identity order when {@code positions} is null.
+     */
+    static final class View {
+
+        private final int[] positions;
+        private final int from;
+        private final int size;
+
+        private View(int[] positions, int from, int size) {
+            this.positions = positions;
+            this.from = from;
+            this.size = size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the source list position of the i-th trail in the view
+         */
+        int position(int i) {
+            return positions == null ? from + i : positions[from + i];
+        }
+    }
+
+    private final List<Trail> source;
+    private final TrailItemTemplates templates;
+
+    private final List<Filter> filters = new ArrayList<>();
+    private final long[][] filterMasks;
+    private final int[][] filterPositions;
+
+    private final int[] byName;
+    private final String[] sortedNames;
+    private final int[] byPrice;
+
+    private final ItemStack[] filterItems;
+    private final ItemStack[] sortItems;
+
+    private TrailCatalog(List<Trail> source, VaultHook vaultHook, double[] priceBands) {
+        this.source = source;
+        this.templates = TrailItemTemplates.build(source, vaultHook);
+        int n = source.size();
+
+        // ── Filter tabs: everything, ownership, then each non-empty type and price band ──
+        filters.add(new Filter(Kind.ALL, 0, "All"));
+        filters.add(new Filter(Kind.OWNED, 0, "Owned"));
+        filters.add(new Filter(Kind.LOCKED, 0, "Locked"));
+        for (TrailType type : TrailType.values()) {
+            filters.add(new Filter(Kind.TYPE, type.ordinal(), capitalize(type.name())));
+        }
+        for (int band = 0; band <= priceBands.length; band++) {
+            filters.add(new Filter(Kind.PRICE, band, bandLabel(band, priceBands, vaultHook)));
+        }
+
+        List<long[]> masks = new ArrayList<>();
+        List<int[]> positions = new ArrayList<>();
+        for (int f = 0; f < filters.size(); f++) {
+            Filter filter = filters.get(f);
+            if (filter.kind() != Kind.TYPE && filter.kind() != Kind.PRICE) {
+                masks.add(null);
+                positions.add(null);
+                continue;
+            }
+            long[] mask = new long[words(n)];
+            int[] array = new int[n];
+            int count = 0;
+            for (int p = 0; p < n; p++) {
+                Trail trail = source.get(p);
+                boolean match = filter.kind() == Kind.TYPE
+                        ? trail.getTrailType().ordinal() == filter.value()
+                        : bandOf(trail.getPrice(), priceBands) == filter.value();
+                if (match) {
+                    mask[p >>> 6] |= 1L << p;
+                    array[count++] = p;
+                }
+            }
+            if (count == 0) {
+                filters.remove(f--);  // no tab for an empty type or band
+                continue;
+            }
+            masks.add(mask);
+            positions.add(Arrays.copyOf(array, count));
+        }
+        this.filterMasks = masks.toArray(new long[0][]);
+        this.filterPositions = positions.toArray(new int[0][]);
+
+        // ── Sort orders and the name index ──
+        String[] names = new String[n];
+        for (int p = 0; p < n; p++) {
+            names[p] = normalize(source.get(p).getDisplayName());
+        }
+        Integer[] order = new Integer[n];
+        for (int p = 0; p < n; p++) order[p] = p;
+
+        Arrays.sort(order, Comparator.comparing((Integer p) -> names[p]).thenComparingInt(p -> p));
+        this.byName = new int[n];
+        this.sortedNames = new String[n];
+        for (int i = 0; i < n; i++) {
+            byName[i] = order[i];
+            sortedNames[i] = names[order[i]];
+        }
+
+        Arrays.sort(order, Comparator.comparingDouble((Integer p) -> source.get(p).getPrice())
+                .thenComparing(p -> names[p]));
+        this.byPrice = new int[n];
+        for (int i = 0; i < n; i++) byPrice[i] = order[i];
+
+        // ── Tab buttons ──
+        this.filterItems = new ItemStack[filters.size()];
+        for (int f = 0; f < filters.size(); f++) {
+            List<String> lore = new ArrayList<>();
+            for (int g = 0; g < filters.size(); g++) {
+                lore.add((g == f ? ChatColor.GREEN + "▶ " : ChatColor.GRAY + "  ") + filters.get(g).label());
+            }
+            lore.add("");
+            lore.add(ChatColor.YELLOW + "Click for the next filter.");
+            filterItems[f] = button(Material.HOPPER, ChatColor.AQUA + "Filter: " + ChatColor.WHITE
+                    + filters.get(f).label(), lore);
+        }
+        Sort[] sorts = Sort.values();
+        this.sortItems = new ItemStack[sorts.length];
+        for (Sort sort : sorts) {
+            List<String> lore = new ArrayList<>();
+            for (Sort other : sorts) {
+                lore.add((other == sort ? ChatColor.GREEN + "▶ " : ChatColor.GRAY + "  ") + other.label);
+            }
+            lore.add("");
+            lore.add(ChatColor.YELLOW + "Click to change the order.");
+            sortItems[sort.ordinal()] = button(Material.COMPARATOR, ChatColor.AQUA + "Sort: " + ChatColor.WHITE
+                    + sort.label, lore);
+        }
+    }
+
+    static TrailCatalog build(List<Trail> trails, VaultHook vaultHook, double[] priceBands) {
+        return new TrailCatalog(trails, vaultHook, priceBands);
+    }
+
+    // ── Queries ─────────────────────────────────────────────
+
+    /**
+     * @param filter index of the filter tab
+     * @param query  name prefix, or null for no search
+     * @param owned  mask of positions the player owns; only read by the
+     *               owned and locked tabs (see {@link #needsOwned})
+     */
+    View select(int filter, Sort sort, String query, long[] owned) {
+        int n = source.size();
+        Filter tab = filters.get(filter);
+        int[] order = switch (sort) {
+            case DEFAULT -> null;
+            case NAME -> byName;
+            case PRICE -> byPrice;
+        };
+
+        long[] mask = switch (tab.kind()) {
+            case ALL -> null;
+            case OWNED -> owned;
+            case LOCKED -> not(owned, n);
+            default -> filterMasks[filter];
+        };
+
+        if (query != null) {
+            String prefix = normalize(query);
+            int lo = lowerBound(prefix);
+            int hi = lowerBound(prefix + Character.MAX_VALUE);
+            if (mask == null && sort == Sort.NAME) {
+                return new View(byName, lo, hi - lo);
+            }
+            long[] found = new long[words(n)];
+            for (int i = lo; i < hi; i++) {
+                found[byName[i] >>> 6] |= 1L << byName[i];
+            }
+            mask = mask == null ? found : and(mask, found);
+        } else if (mask == null) {
+            return new View(order, 0, n);
+        } else if (order == null && filterPositions[filter] != null) {
+            return new View(filterPositions[filter], 0, filterPositions[filter].length);
+        }
+
+        int[] result = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int p = order == null ? i : order[i];
+            if ((mask[p >>> 6] & (1L << p)) != 0) result[count++] = p;
+        }
+        return new View(result, 0, count);
+    }
+
+    /**
+     * @return whether {@link #select} needs the player's owned mask for this tab
+     */
+    boolean needsOwned(int filter) {
+        Kind kind = filters.get(filter).kind();
+        return kind == Kind.OWNED || kind == Kind.LOCKED;
+    }
+
+    // ── Getters ─────────────────────────────────────────────
+
+    List<Trail> getSource() { return source; }
+    TrailItemTemplates getTemplates() { return templates; }
+    int getFilterCount() { return filters.size(); }
+    String getFilterLabel(int filter) { return filters.get(filter).label(); }
+    ItemStack getFilterItem(int filter) { return filterItems[filter]; }
+    ItemStack getSortItem(Sort sort) { return sortItems[sort.ordinal()]; }
+
+    // ── Internal ────────────────────────────────────────────
+
+    /**
+     * @return the first position in name order whose name is not below {@code key}
+     */
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = sortedNames.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedNames[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    static String normalize(String name) {
+        return ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&', name))
+                .trim().toLowerCase(Locale.ROOT);
+    }
+
+    static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private static long[] and(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        for (int i = 0; i < result.length; i++) result[i] = a[i] & b[i];
+        return result;
+    }
+
+    private static long[] not(long[] mask, int bits) {
+        long[] result = new long[words(bits)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ~(i < mask.length ? mask[i] : 0);
+        }
+        if ((bits & 63) != 0) result[result.length - 1] &= (1L << bits) - 1;
+        return result;
+    }
+
+    /**
+     * Band 0 is free; band i covers (bound[i-1], bound[i]]; the last band
+     * is everything above the highest bound.
+     */
+    private static int bandOf(double price, double[] bounds) {
+        if (price <= 0) return 0;
+        for (int i = 0; i < bounds.length; i++) {
+            if (price <= bounds[i]) return i + 1;
+        }
+        return bounds.length + 1;
+    }
+
+    private static String bandLabel(int band, double[] bounds, VaultHook vaultHook) {
+        if (band == 0) return "Free";
+        if (bounds.length == 0) return "Paid";
+        if (band == 1) return "Up to " + vaultHook.format(bounds[0]);
+        if (band <= bounds.length) {
+            return vaultHook.format(bounds[band - 2]) + " – " + vaultHook.format(bounds[band - 1]);
+        }
+        return "Over " + vaultHook.format(bounds[bounds.length - 1]);
+    }
+
+    private static String capitalize(String name) {
+        return name.charAt(0) + name.substring(1).toLowerCase(Locale.ROOT);
+    }
+
+    private static ItemStack button(Material material, String name, List<String> lore) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(name);
+            meta.setLore(lore);
+            meta.addItemFlags(ItemFlag.HIDE_ATTRIBUTES);
+            item.setItemMeta(meta);
+        }
+        return item;
+    }
+}
@@ -3,21 +3,40 @@ package com.usainsrht.elytratrails.gui;
 import com.usainsrht.elytratrails.ElytraTrails;
 import com.usainsrht.elytratrails.config.PlayerDataManager;
 import com.usainsrht.elytratrails.config.TrailManager;
+import com.usainsrht.elytratrails.economy.PurchaseService;
 import com.usainsrht.elytratrails.economy.VaultHook;
 import com.usainsrht.elytratrails.model.Trail;
+import com.usainsrht.elytratrails.model.TrailBits;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Builds and opens paginated trail-selection GUIs for players.
+ *
+ * <p>Trail icons come from {@link TrailItemTemplates}, built once per trail
+ * list; a render only chooses a template per slot. Clicks update the open
+ * inventory in place through its {@link TrailGUIHolder} rather than
+ * building and opening a new one.
+ *
+ * <p>Filter tabs, sort orders and name search are answered by the
+ * {@link TrailCatalog} indexes built alongside the templates; the holder
+ * keeps the resulting view until the query or the player's unlocks
+ * change, and pages are read straight out of it. Search text is asked
+ * for in chat (see {@link #handleChat}).
+ *
+ * <p>Purchases go through {@link PurchaseService}: the trail shows as
+ * pending while the economy works off-thread, and the GUI is updated when
+ * the outcome comes back on the player's scheduler.
  */
 public class TrailGUI {
 
@@ -25,71 +44,144 @@ public class TrailGUI {
     private static final int SIZE = ROWS * 9;            // 54 slots
     private static final int TRAIL_SLOTS = (ROWS - 1) * 9; // 45 slots for trails
     private static final String TITLE_PREFIX = ChatColor.DARK_PURPLE + "" + ChatColor.BOLD + "Elytra Trails";
+    private static final long SEARCH_TIMEOUT_MS = 60_000;
+
+    /** A GUI closed to ask for search text in chat, and its query to restore. */
+    private record SearchPrompt(int filter, TrailCatalog.Sort sort, long expiresAt) {
+    }
 
     private final ElytraTrails plugin;
     private final TrailManager trailManager;
     private final PlayerDataManager playerData;
     private final VaultHook vaultHook;
+    private final PurchaseService purchases;
+
+    /** Indexes and trail icons for the current trail list; replaced after a reload. */
+    private volatile TrailCatalog catalog;
+
+    private final Map<UUID, SearchPrompt> searchPrompts = new ConcurrentHashMap<>();
+
+    // ── Fixed items, shared by every GUI ──
+    private final ItemStack fillerItem = createItem(Material.GRAY_STAINED_GLASS_PANE, " ");
+    private final ItemStack previousItem = createItem(Material.ARROW, ChatColor.YELLOW + "← Previous Page");
+    private final ItemStack nextItem = createItem(Material.ARROW, ChatColor.YELLOW + "Next Page →");
+    private final ItemStack closeItem = createItem(Material.BARRIER, ChatColor.RED + "Close");
+    private final ItemStack deselectItem = createItem(Material.MILK_BUCKET, ChatColor.YELLOW + "Deselect Trail");
+    private final ItemStack searchItem = createItem(Material.OAK_SIGN, ChatColor.AQUA + "Search",
+            ChatColor.GRAY + "Find trails by name.", "", ChatColor.YELLOW + "Click to type a search in chat.");
 
     public TrailGUI(ElytraTrails plugin, TrailManager trailManager,
-                    PlayerDataManager playerData, VaultHook vaultHook) {
+                    PlayerDataManager playerData, VaultHook vaultHook, PurchaseService purchases) {
         this.plugin = plugin;
         this.trailManager = trailManager;
         this.playerData = playerData;
         this.vaultHook = vaultHook;
+        this.purchases = purchases;
+        catalog();
     }
 
     /**
      * Open the trail GUI for a player at a given page (0-indexed).
      */
     public void open(Player player, int page) {
-        List<Trail> trails = new ArrayList<>(trailManager.getTrails());
-        int totalPages = Math.max(1, (int) Math.ceil((double) trails.size() / TRAIL_SLOTS));
-        page = Math.max(0, Math.min(page, totalPages - 1));
-
-        String title = TITLE_PREFIX + ChatColor.GRAY + " (" + (page + 1) + "/" + totalPages + ")";
-        TrailGUIHolder holder = new TrailGUIHolder(page);
-        Inventory inv = Bukkit.createInventory(holder, SIZE, title);
+        open(player, new TrailGUIHolder(page, SIZE));
+    }
 
-        UUID uuid = player.getUniqueId();
-        String activeTrailId = playerData.getActiveTrail(uuid);
-        Set<String> unlocked = playerData.getUnlockedTrails(uuid);
+    private void open(Player player, TrailGUIHolder holder) {
+        // Resolve the view and page first so the inventory gets the right title
+        Inventory inv = Bukkit.createInventory(holder, SIZE, prepare(player, holder));
+        holder.setInventory(inv);
+        render(player, holder);
+        player.openInventory(inv);
+    }
 
-        int startIndex = page * TRAIL_SLOTS;
-        int endIndex = Math.min(startIndex + TRAIL_SLOTS, trails.size());
+    /**
+     * Take a chat message as search text if the player was asked for one.
+     * Called from the async chat thread; the GUI is reopened on the
+     * player's own scheduler.
+     *
+     * @return whether the message was consumed
+     */
+    public boolean handleChat(Player player, String message) {
+        SearchPrompt prompt = searchPrompts.remove(player.getUniqueId());
+        if (prompt == null || prompt.expiresAt() < System.currentTimeMillis()) return false;
+
+        String text = message.trim();
+        String query = text.isEmpty() || text.equalsIgnoreCase("cancel") ? null : text;
+        player.getScheduler().run(plugin, task -> {
+            TrailGUIHolder holder = new TrailGUIHolder(0, SIZE);
+            holder.setFilter(prompt.filter());
+            holder.setSort(prompt.sort());
+            holder.setQuery(query);
+            open(player, holder);
+        }, null);
+        return true;
+    }
 
-        for (int i = startIndex; i < endIndex; i++) {
-            Trail trail = trails.get(i);
-            int slot = i - startIndex;
-            inv.setItem(slot, createTrailItem(trail, uuid, activeTrailId, unlocked, player));
-        }
+    /**
+     * Drop a pending search prompt (player quit).
+     */
+    public void cancelSearch(UUID uuid) {
+        searchPrompts.remove(uuid);
+    }
 
-        // ── Navigation bar (row 6, slots 45-53) ─────────────
-        // Fill bottom row with glass panes
-        ItemStack filler = createItem(Material.GRAY_STAINED_GLASS_PANE, " ");
-        for (int i = TRAIL_SLOTS; i < SIZE; i++) {
-            inv.setItem(i, filler);
+    /**
+     * Bring an open GUI up to date for the player's current state: picks
+     * the pre-rendered template for every slot and writes only the slots
+     * whose template changed. Page changes retitle the open view instead
+     * of reopening it.
+     */
+    private void render(Player player, TrailGUIHolder holder) {
+        String title = prepare(player, holder);
+        if (!title.equals(holder.getTitle())) {
+            holder.setTitle(title);
+            InventoryView openView = player.getOpenInventory();
+            if (openView.getTopInventory() == holder.getInventory()) {
+                openView.setTitle(title);
+            }
         }
 
-        // Previous page button
-        if (page > 0) {
-            inv.setItem(45, createItem(Material.ARROW, ChatColor.YELLOW + "← Previous Page"));
-        }
+        TrailCatalog catalog = holder.getCatalog();
+        TrailItemTemplates templates = catalog.getTemplates();
+        List<Trail> trails = catalog.getSource();
+        TrailCatalog.View view = holder.getView();
+        int page = holder.getPage();
+        int totalPages = totalPages(view);
 
-        // Close button
-        inv.setItem(49, createItem(Material.BARRIER, ChatColor.RED + "Close"));
+        UUID uuid = player.getUniqueId();
+        String activeTrailId = playerData.getActiveTrail(uuid);
+        TrailBits unlocked = playerData.getUnlockedTrails(uuid);
+        boolean allTrails = player.hasPermission("elytratrails.trail.*");
+        boolean canBuy = player.hasPermission("elytratrails.buy");
 
-        // Next page button
-        if (page < totalPages - 1) {
-            inv.setItem(53, createItem(Material.ARROW, ChatColor.YELLOW + "Next Page →"));
+        int startIndex = page * TRAIL_SLOTS;
+        for (int slot = 0; slot < TRAIL_SLOTS; slot++) {
+            int i = startIndex + slot;
+            if (i >= view.size()) {
+                holder.show(slot, null);
+                continue;
+            }
+            Trail trail = trails.get(view.position(i));
+            TrailItemTemplates.State state = purchases.isPending(uuid, trail)
+                    ? TrailItemTemplates.State.PENDING
+                    : stateOf(player, trail, activeTrailId, unlocked, allTrails, canBuy);
+            holder.show(slot, templates.get(trail, state));
         }
 
-        // Deselect trail button
-        if (activeTrailId != null) {
-            inv.setItem(47, createItem(Material.MILK_BUCKET, ChatColor.YELLOW + "Deselect Trail"));
+        // ── Navigation bar (row 6, slots 45-53) ─────────────
+        for (int slot = TRAIL_SLOTS; slot < SIZE; slot++) {
+            ItemStack item = switch (slot) {
+                case 45 -> page > 0 ? previousItem : fillerItem;
+                case 46 -> catalog.getFilterItem(holder.getFilter());
+                case 47 -> activeTrailId != null ? deselectItem : fillerItem;
+                case 48 -> catalog.getSortItem(holder.getSort());
+                case 49 -> closeItem;
+                case 50 -> searchItem(holder);
+                case 53 -> page < totalPages - 1 ? nextItem : fillerItem;
+                default -> fillerItem;
+            };
+            holder.show(slot, item);
         }
-
-        player.openInventory(inv);
     }
 
     /**
@@ -101,12 +193,16 @@ public class TrailGUI {
         // Navigation
         if (slot == 45) {
             // Previous page
-            if (page > 0) open(player, page - 1);
+            if (page > 0) {
+                holder.setPage(page - 1);
+                render(player, holder);
+            }
             return;
         }
         if (slot == 53) {
             // Next page
-            open(player, page + 1);
+            holder.setPage(page + 1);
+            render(player, holder);
             return;
         }
         if (slot == 49) {
@@ -114,46 +210,83 @@ public class TrailGUI {
             player.closeInventory();
             return;
         }
+        if (slot == 46) {
+            // Next filter tab
+            holder.setFilter((holder.getFilter() + 1) % holder.getCatalog().getFilterCount());
+            holder.setPage(0);
+            render(player, holder);
+            return;
+        }
+        if (slot == 48) {
+            // Next sort order
+            holder.setSort(holder.getSort().next());
+            holder.setPage(0);
+            render(player, holder);
+            return;
+        }
+        if (slot == 50) {
+            // Clear the search, or ask for one
+            if (holder.getQuery() != null) {
+                holder.setQuery(null);
+                holder.setPage(0);
+                render(player, holder);
+            } else {
+                searchPrompts.put(player.getUniqueId(), new SearchPrompt(holder.getFilter(), holder.getSort(),
+                        System.currentTimeMillis() + SEARCH_TIMEOUT_MS));
+                player.closeInventory();
+                player.sendMessage(ChatColor.AQUA + "Type the start of a trail name in chat, or "
+                        + ChatColor.WHITE + "cancel" + ChatColor.AQUA + ".");
+            }
+            return;
+        }
         if (slot == 47) {
             // Deselect
             playerData.setActiveTrail(player.getUniqueId(), null);
+            plugin.getParticleTask().refresh(player);
             player.sendMessage(ChatColor.YELLOW + "Trail deselected.");
-            open(player, page);
+            render(player, holder);
             return;
         }
 
-        // Trail slot click
+        // Trail slot click: resolve against the view the player is looking at
         if (slot < 0 || slot >= TRAIL_SLOTS) return;
 
-        List<Trail> trails = new ArrayList<>(trailManager.getTrails());
+        TrailCatalog.View view = holder.getView();
         int index = page * TRAIL_SLOTS + slot;
-        if (index >= trails.size()) return;
+        if (view == null || index >= view.size()) return;
 
-        Trail trail = trails.get(index);
+        Trail trail = holder.getCatalog().getSource().get(view.position(index));
         UUID uuid = player.getUniqueId();
 
+        if (purchases.isPending(uuid, trail)) {
+            // Repeat click while the purchase is still running
+            return;
+        }
+
         // Check if already active → deselect
         if (trail.getId().equals(playerData.getActiveTrail(uuid))) {
             playerData.setActiveTrail(uuid, null);
+            plugin.getParticleTask().refresh(player);
             player.sendMessage(ChatColor.YELLOW + "Trail " + ChatColor.translateAlternateColorCodes('&', trail.getDisplayName())
                     + ChatColor.YELLOW + " deselected.");
-            open(player, page);
+            render(player, holder);
             return;
         }
 
         boolean hasPermission = player.hasPermission("elytratrails.trail.*")
                 || player.hasPermission(trail.getPermission());
-        boolean isUnlocked = playerData.hasUnlocked(uuid, trail.getId());
+        boolean isUnlocked = playerData.hasUnlocked(uuid, trail);
 
         if (hasPermission || isUnlocked) {
             // Select the trail
             playerData.setActiveTrail(uuid, trail.getId());
+            plugin.getParticleTask().refresh(player);
             player.sendMessage(ChatColor.GREEN + "Trail " + ChatColor.translateAlternateColorCodes('&', trail.getDisplayName())
                     + ChatColor.GREEN + " selected!");
-            open(player, page);
+            render(player, holder);
         } else if (trail.getPrice() > 0 && player.hasPermission("elytratrails.buy")) {
             // Attempt purchase
-            attemptPurchase(player, trail, page);
+            attemptPurchase(player, trail, holder);
         } else {
             player.sendMessage(ChatColor.RED + "You don't have permission to use this trail.");
         }
@@ -161,92 +294,155 @@ public class TrailGUI {
 
     // ── Private helpers ─────────────────────────────────────
 
-    private void attemptPurchase(Player player, Trail trail, int page) {
+    private void attemptPurchase(Player player, Trail trail, TrailGUIHolder holder) {
         if (!vaultHook.isEnabled()) {
             player.sendMessage(ChatColor.RED + "Economy is not available. Cannot purchase trails.");
             return;
         }
 
-        if (!vaultHook.has(player, trail.getPrice())) {
-            player.sendMessage(ChatColor.RED + "You need " + vaultHook.format(trail.getPrice()) + " to purchase this trail.");
+        if (!purchases.submit(player, trail, outcome -> completePurchase(player, trail, holder, outcome))) {
+            player.sendMessage(ChatColor.RED + "That purchase is still being processed.");
             return;
         }
-
-        if (vaultHook.withdraw(player, trail.getPrice())) {
-            playerData.unlockTrail(player.getUniqueId(), trail.getId());
-            playerData.setActiveTrail(player.getUniqueId(), trail.getId());
-            player.sendMessage(ChatColor.GREEN + "Purchased and equipped "
-                    + ChatColor.translateAlternateColorCodes('&', trail.getDisplayName())
-                    + ChatColor.GREEN + " for " + vaultHook.format(trail.getPrice()) + "!");
-            open(player, page);
-        } else {
-            player.sendMessage(ChatColor.RED + "Transaction failed. Please try again.");
-        }
+        render(player, holder);
     }
 
-    private ItemStack createTrailItem(Trail trail, UUID uuid, String activeTrailId,
-                                      Set<String> unlocked, Player player) {
-        boolean isActive = trail.getId().equals(activeTrailId);
-        boolean hasPermission = player.hasPermission("elytratrails.trail.*")
-                || player.hasPermission(trail.getPermission());
-        boolean isUnlocked = unlocked.contains(trail.getId()) || hasPermission;
-        boolean isFree = trail.getPrice() <= 0;
+    /**
+     * Apply a purchase outcome on the player's scheduler: equip on success,
+     * tell the player, and refresh the GUI if it is still open.
+     */
+    private void completePurchase(Player player, Trail trail, TrailGUIHolder holder,
+                                  PurchaseService.Outcome outcome) {
+        String name = ChatColor.translateAlternateColorCodes('&', trail.getDisplayName());
+        switch (outcome) {
+            case PURCHASED -> {
+                playerData.setActiveTrail(player.getUniqueId(), trail.getId());
+                plugin.getParticleTask().refresh(player);
+                player.sendMessage(ChatColor.GREEN + "Purchased and equipped " + name
+                        + ChatColor.GREEN + " for " + vaultHook.format(trail.getPrice()) + "!");
+            }
+            case ALREADY_OWNED -> player.sendMessage(ChatColor.YELLOW + "You already own " + name
+                    + ChatColor.YELLOW + "; nothing was charged.");
+            case INSUFFICIENT_FUNDS -> player.sendMessage(ChatColor.RED + "You need "
+                    + vaultHook.format(trail.getPrice()) + " to purchase this trail.");
+            case DECLINED, FAILED -> player.sendMessage(ChatColor.RED + "Transaction failed. Please try again.");
+        }
 
-        ItemStack item = new ItemStack(trail.getIcon());
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) return item;
+        holder.invalidateOwned();
+        if (player.getOpenInventory().getTopInventory() == holder.getInventory()) {
+            render(player, holder);
+        }
+    }
 
-        // Display name
-        String name = ChatColor.translateAlternateColorCodes('&', trail.getDisplayName());
-        if (isActive) {
-            meta.setDisplayName(ChatColor.GREEN + "★ " + name + ChatColor.GREEN + " ★");
-        } else if (isUnlocked) {
-            meta.setDisplayName(ChatColor.WHITE + name);
-        } else {
-            meta.setDisplayName(ChatColor.RED + "✖ " + name);
+    private static TrailItemTemplates.State stateOf(Player player, Trail trail, String activeTrailId,
+                                                    TrailBits unlocked, boolean allTrails, boolean canBuy) {
+        if (trail.getId().equals(activeTrailId)) return TrailItemTemplates.State.ACTIVE;
+        if (allTrails || unlocked.contains(trail.getIndex()) || player.hasPermission(trail.getPermission())) {
+            return TrailItemTemplates.State.UNLOCKED;
         }
+        return canBuy && trail.getPrice() > 0
+                ? TrailItemTemplates.State.LOCKED_BUYABLE : TrailItemTemplates.State.LOCKED;
+    }
 
-        // Lore
-        List<String> lore = new ArrayList<>();
-        lore.add(ChatColor.GRAY + "Type: " + ChatColor.WHITE + trail.getTrailType().name());
-        lore.add("");
-
-        if (isActive) {
-            lore.add(ChatColor.GREEN + "▶ Currently Active");
-            lore.add(ChatColor.YELLOW + "Click to deselect.");
-        } else if (isUnlocked) {
-            lore.add(ChatColor.GREEN + "✔ Unlocked");
-            lore.add(ChatColor.YELLOW + "Click to select.");
-        } else {
-            lore.add(ChatColor.RED + "✖ Locked");
-            if (!isFree) {
-                lore.add(ChatColor.GOLD + "Price: " + ChatColor.WHITE + vaultHook.format(trail.getPrice()));
-                if (player.hasPermission("elytratrails.buy")) {
-                    lore.add(ChatColor.YELLOW + "Click to purchase.");
+    /**
+     * Bring the holder's catalog and view up to date (catalog swapped after
+     * a reload, view dropped by a query change or purchase) and clamp its
+     * page.
+     *
+     * @return the title for the holder's current page and query
+     */
+    private String prepare(Player player, TrailGUIHolder holder) {
+        TrailCatalog catalog = catalog();
+        if (holder.getCatalog() != catalog) {
+            holder.setCatalog(catalog);
+        }
+        if (holder.getView() == null) {
+            long[] owned = null;
+            if (catalog.needsOwned(holder.getFilter())) {
+                owned = holder.getOwned();
+                if (owned == null) {
+                    owned = ownedMask(player, catalog);
+                    holder.setOwned(owned);
                 }
             }
-            if (!hasPermission) {
-                lore.add(ChatColor.DARK_GRAY + "Permission: " + trail.getPermission());
-            }
+            holder.setView(catalog.select(holder.getFilter(), holder.getSort(), holder.getQuery(), owned));
         }
 
-        meta.setLore(lore);
-        meta.addItemFlags(ItemFlag.HIDE_ATTRIBUTES, ItemFlag.HIDE_ENCHANTS);
+        int totalPages = totalPages(holder.getView());
+        int page = Math.max(0, Math.min(holder.getPage(), totalPages - 1));
+        holder.setPage(page);
 
-        // Enchant glow for active trail
-        if (isActive) {
-            meta.setEnchantmentGlintOverride(true);
+        String title = TITLE_PREFIX + ChatColor.GRAY + " (" + (page + 1) + "/" + totalPages + ")";
+        if (holder.getQuery() != null) {
+            title += ChatColor.DARK_GRAY + " \"" + holder.getQuery() + "\"";
         }
+        return title;
+    }
 
-        item.setItemMeta(meta);
+    /**
+     * @return catalog positions of the trails the player may use
+     */
+    private long[] ownedMask(Player player, TrailCatalog catalog) {
+        List<Trail> trails = catalog.getSource();
+        long[] mask = new long[TrailCatalog.words(trails.size())];
+        TrailBits unlocked = playerData.getUnlockedTrails(player.getUniqueId());
+        boolean allTrails = player.hasPermission("elytratrails.trail.*");
+        for (int p = 0; p < trails.size(); p++) {
+            Trail trail = trails.get(p);
+            if (allTrails || unlocked.contains(trail.getIndex()) || player.hasPermission(trail.getPermission())) {
+                mask[p >>> 6] |= 1L << p;
+            }
+        }
+        return mask;
+    }
+
+    private ItemStack searchItem(TrailGUIHolder holder) {
+        if (holder.getQuery() == null) return searchItem;
+        ItemStack item = holder.getSearchItem();
+        if (item == null) {
+            item = createItem(Material.OAK_SIGN, ChatColor.AQUA + "Search: " + ChatColor.WHITE + holder.getQuery(),
+                    ChatColor.GRAY + "" + holder.getView().size() + " matching trails.", "",
+                    ChatColor.YELLOW + "Click to clear the search.");
+            holder.setSearchItem(item);
+        }
         return item;
     }
 
-    private ItemStack createItem(Material material, String name) {
+    /**
+     * @return indexes and templates for the current trail list, rebuilt after a reload
+     */
+    private TrailCatalog catalog() {
+        TrailCatalog current = catalog;
+        List<Trail> trails = trailManager.getTrails();
+        if (current == null || current.getSource() != trails) {
+            current = TrailCatalog.build(trails, vaultHook, priceBands());
+            catalog = current;
+        }
+        return current;
+    }
+
+    /**
+     * @return the configured price band upper bounds, ascending and positive
+     */
+    private double[] priceBands() {
+        return plugin.getConfig().getDoubleList("gui.price-bands").stream()
+                .mapToDouble(Double::doubleValue)
+                .filter(bound -> bound > 0)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    private static int totalPages(TrailCatalog.View view) {
+        return Math.max(1, (view.size() + TRAIL_SLOTS - 1) / TRAIL_SLOTS);
+    }
+
+    private ItemStack createItem(Material material, String name, String... lore) {
         ItemStack item = new ItemStack(material);
         ItemMeta meta = item.getItemMeta();
         if (meta != null) {
             meta.setDisplayName(name);
+            if (lore.length > 0) meta.setLore(List.of(lore));
             meta.addItemFlags(ItemFlag.HIDE_ATTRIBUTES);
             item.setItemMeta(meta);
         }
@@ -2,18 +2,40 @@ package com.usainsrht.elytratrails.gui;
 
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * Marker InventoryHolder so we can identify our GUI inventories
- * via {@code event.getInventory().getHolder() instanceof TrailGUIHolder}.
+ * InventoryHolder of an open trail GUI, so we can identify our GUI
+ * inventories via {@code event.getInventory().getHolder() instanceof
+ * TrailGUIHolder}. Also remembers what the GUI currently shows (page,
+ * query, catalog view, item per slot), so {@link TrailGUI} can update the
+ * open inventory in place and only touch slots whose item changed.
  */
 public class TrailGUIHolder implements InventoryHolder {
 
-    private final int page;
+    private int page;
+    private Inventory inventory;
+    private String title;
 
-    public TrailGUIHolder(int page) {
+    // ── Query: filter tab, sort order and name search ──
+    private int filter;
+    private TrailCatalog.Sort sort = TrailCatalog.Sort.DEFAULT;
+    private String query;
+
+    /** The catalog the current page was rendered from. */
+    private TrailCatalog catalog;
+    /** Result of the query over {@link #catalog}; null when it must be recomputed. */
+    private TrailCatalog.View view;
+    /** Catalog positions this player owns; null when it must be recomputed. */
+    private long[] owned;
+    private ItemStack searchItem;
+    /** Template currently in each slot (compared by identity). */
+    private final ItemStack[] shown;
+
+    public TrailGUIHolder(int page, int size) {
         this.page = page;
+        this.shown = new ItemStack[size];
     }
 
     public int getPage() {
@@ -22,8 +44,110 @@ public class TrailGUIHolder implements InventoryHolder {
 
     @Override
     public @NotNull Inventory getInventory() {
-        // Not used — the actual inventory is created by TrailGUI
-        throw new UnsupportedOperationException();
+        return inventory;
+    }
+
+    // ── Rendering state (TrailGUI only) ─────────────────────
+
+    void setPage(int page) {
+        this.page = page;
+    }
+
+    void setInventory(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    String getTitle() {
+        return title;
+    }
+
+    void setTitle(String title) {
+        this.title = title;
+    }
+
+    int getFilter() {
+        return filter;
+    }
+
+    void setFilter(int filter) {
+        this.filter = filter;
+        this.view = null;
+    }
+
+    TrailCatalog.Sort getSort() {
+        return sort;
+    }
+
+    void setSort(TrailCatalog.Sort sort) {
+        this.sort = sort;
+        this.view = null;
+    }
+
+    String getQuery() {
+        return query;
     }
-}
 
+    void setQuery(String query) {
+        this.query = query;
+        this.view = null;
+        this.searchItem = null;
+    }
+
+    TrailCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Switch to another catalog (after a reload); tabs may have changed,
+     * so the filter falls back to the first one if it no longer exists.
+     */
+    void setCatalog(TrailCatalog catalog) {
+        this.catalog = catalog;
+        if (filter >= catalog.getFilterCount()) filter = 0;
+        this.view = null;
+        this.owned = null;
+    }
+
+    TrailCatalog.View getView() {
+        return view;
+    }
+
+    void setView(TrailCatalog.View view) {
+        this.view = view;
+    }
+
+    long[] getOwned() {
+        return owned;
+    }
+
+    void setOwned(long[] owned) {
+        this.owned = owned;
+    }
+
+    /**
+     * Forget the owned mask (and the view built from it) after the
+     * player's unlocks changed.
+     */
+    void invalidateOwned() {
+        if (owned == null) return;
+        owned = null;
+        view = null;
+    }
+
+    ItemStack getSearchItem() {
+        return searchItem;
+    }
+
+    void setSearchItem(ItemStack searchItem) {
+        this.searchItem = searchItem;
+    }
+
+    /**
+     * Put an item in a slot unless that exact item is already there.
+     */
+    void show(int slot, ItemStack item) {
+        if (shown[slot] == item) return;
+        shown[slot] = item;
+        inventory.setItem(slot, item);
+    }
+}
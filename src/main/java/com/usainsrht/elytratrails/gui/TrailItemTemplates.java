@@ -0,0 +1,121 @@
+package com.usainsrht.elytratrails.gui;
+
+import com.usainsrht.elytratrails.economy.VaultHook;
+import com.usainsrht.elytratrails.model.Trail;
+import org.bukkit.ChatColor;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-rendered trail icons: every trail in every state a player can see it
+ * in, built once per trail list. Opening or refreshing the GUI only picks
+ * templates; it never builds an {@link ItemStack} or {@link ItemMeta}.
+ *
+ * <p>Templates are shared between all players and must not be modified;
+ * {@code Inventory#setItem} stores its own copy.
+ */
+final class TrailItemTemplates {
+
+    /** How a trail appears to one player. */
+    enum State {
+        ACTIVE,
+        UNLOCKED,
+        LOCKED,
+        /** Locked, has a price and the player may buy it. */
+        LOCKED_BUYABLE,
+        /** Being bought by the player right now. */
+        PENDING
+    }
+
+    private static final State[] STATES = State.values();
+
+    private final List<Trail> source;
+    /** Trail index → template per {@link State} ordinal. */
+    private final ItemStack[][] byIndex;
+
+    private TrailItemTemplates(List<Trail> source, ItemStack[][] byIndex) {
+        this.source = source;
+        this.byIndex = byIndex;
+    }
+
+    static TrailItemTemplates build(List<Trail> trails, VaultHook vaultHook) {
+        int size = 0;
+        for (Trail trail : trails) size = Math.max(size, trail.getIndex() + 1);
+
+        ItemStack[][] byIndex = new ItemStack[size][];
+        for (Trail trail : trails) {
+            ItemStack[] variants = new ItemStack[STATES.length];
+            for (State state : STATES) {
+                variants[state.ordinal()] = render(trail, state, vaultHook);
+            }
+            byIndex[trail.getIndex()] = variants;
+        }
+        return new TrailItemTemplates(trails, byIndex);
+    }
+
+    /**
+     * @return the trail list these templates were built from
+     */
+    List<Trail> getSource() {
+        return source;
+    }
+
+    ItemStack get(Trail trail, State state) {
+        return byIndex[trail.getIndex()][state.ordinal()];
+    }
+
+    private static ItemStack render(Trail trail, State state, VaultHook vaultHook) {
+        ItemStack item = new ItemStack(trail.getIcon());
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) return item;
+
+        // Display name
+        String name = ChatColor.translateAlternateColorCodes('&', trail.getDisplayName());
+        switch (state) {
+            case ACTIVE -> meta.setDisplayName(ChatColor.GREEN + "★ " + name + ChatColor.GREEN + " ★");
+            case UNLOCKED -> meta.setDisplayName(ChatColor.WHITE + name);
+            case PENDING -> meta.setDisplayName(ChatColor.YELLOW + "⌛ " + name);
+            default -> meta.setDisplayName(ChatColor.RED + "✖ " + name);
+        }
+
+        // Lore
+        List<String> lore = new ArrayList<>();
+        lore.add(ChatColor.GRAY + "Type: " + ChatColor.WHITE + trail.getTrailType().name());
+        lore.add("");
+
+        if (state == State.ACTIVE) {
+            lore.add(ChatColor.GREEN + "▶ Currently Active");
+            lore.add(ChatColor.YELLOW + "Click to deselect.");
+        } else if (state == State.UNLOCKED) {
+            lore.add(ChatColor.GREEN + "✔ Unlocked");
+            lore.add(ChatColor.YELLOW + "Click to select.");
+        } else if (state == State.PENDING) {
+            lore.add(ChatColor.GOLD + "Price: " + ChatColor.WHITE + vaultHook.format(trail.getPrice()));
+            lore.add(ChatColor.YELLOW + "⌛ Purchase in progress...");
+        } else {
+            lore.add(ChatColor.RED + "✖ Locked");
+            if (trail.getPrice() > 0) {
+                lore.add(ChatColor.GOLD + "Price: " + ChatColor.WHITE + vaultHook.format(trail.getPrice()));
+                if (state == State.LOCKED_BUYABLE) {
+                    lore.add(ChatColor.YELLOW + "Click to purchase.");
+                }
+            }
+            lore.add(ChatColor.DARK_GRAY + "Permission: " + trail.getPermission());
+        }
+
+        meta.setLore(lore);
+        meta.addItemFlags(ItemFlag.HIDE_ATTRIBUTES, ItemFlag.HIDE_ENCHANTS);
+
+        // Enchant glow for active trail
+        if (state == State.ACTIVE) {
+            meta.setEnchantmentGlintOverride(true);
+        }
+
+        item.setItemMeta(meta);
+        return item;
+    }
+}
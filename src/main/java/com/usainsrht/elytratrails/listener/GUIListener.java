@@ -8,9 +8,12 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 /**
- * Handles inventory interaction events for the trail GUI.
+ * Handles inventory interaction events for the trail GUI, and chat
+ * replies to its search prompt.
  */
 public class GUIListener implements Listener {
 
@@ -39,5 +42,16 @@ public class GUIListener implements Listener {
             event.setCancelled(true);
         }
     }
-}
 
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onChat(AsyncPlayerChatEvent event) {
+        if (trailGUI.handleChat(event.getPlayer(), event.getMessage())) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        trailGUI.cancelSearch(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,56 @@
+package com.usainsrht.elytratrails.listener;
+
+import com.destroystokyo.paper.event.player.PlayerArmorChangeEvent;
+import com.usainsrht.elytratrails.trail.ParticleTask;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityToggleGlideEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Keeps the particle task's glider index in sync with players' gliding
+ * state, so the task never has to scan every online player, and opens and
+ * closes each player's renderer session on join and quit.
+ */
+public class GlideListener implements Listener {
+
+    private final ParticleTask particleTask;
+
+    public GlideListener(ParticleTask particleTask) {
+        this.particleTask = particleTask;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onToggleGlide(EntityToggleGlideEvent event) {
+        if (event.getEntity() instanceof Player player) {
+            particleTask.refresh(player, event.isGliding());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onArmorChange(PlayerArmorChangeEvent event) {
+        if (event.getSlotType() == PlayerArmorChangeEvent.SlotType.CHEST) {
+            particleTask.refresh(event.getPlayer());
+        }
+    }
+
+    // MONITOR so player data has been loaded by PlayerListener first
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        particleTask.open(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        particleTask.close(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChangedWorld(PlayerChangedWorldEvent event) {
+        particleTask.refresh(event.getPlayer());
+    }
+}
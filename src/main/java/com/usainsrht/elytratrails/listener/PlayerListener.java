@@ -1,13 +1,19 @@
 package com.usainsrht.elytratrails.listener;
 
 import com.usainsrht.elytratrails.config.PlayerDataManager;
+import org.bukkit.ChatColor;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
+import java.util.concurrent.CompletionException;
+
 /**
- * Loads player data on join and saves/unloads on quit.
+ * Loads player data during pre-login (off the main thread), pins it while
+ * the player is online and hands it to the retention cache on quit.
  */
 public class PlayerListener implements Listener {
 
@@ -17,9 +23,21 @@ public class PlayerListener implements Listener {
         this.playerData = playerData;
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        try {
+            playerData.loadForLogin(event.getUniqueId()).join();
+        } catch (CompletionException e) {
+            // Letting them in with empty data would overwrite their saved trails
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                    ChatColor.RED + "Could not load your trail data. Please try again shortly.");
+        }
+    }
+
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
-        playerData.load(event.getPlayer().getUniqueId());
+        playerData.markOnline(event.getPlayer().getUniqueId());
     }
 
     @EventHandler
@@ -0,0 +1,96 @@
+package com.usainsrht.elytratrails.model;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Load-time settings and memory budget for baking periodic emitter
+ * animations into keyframe tables.
+ *
+ * <p>Spiral rotation, spiral pulsing, butterfly flapping and waves all
+ * advance a phase by a fixed step per tick. If some frame count {@code n}
+ * makes {@code n * step} land (within {@code phase-tolerance}) on a whole
+ * number of turns, the animation repeats every {@code n} ticks and can be
+ * stored as {@code n} frames of local-space offsets. The step is snapped so
+ * the loop is seamless; emitters whose period exceeds {@code max-frames}, or
+ * that no longer fit in the memory cap, keep evaluating live.
+ *
+ * <p>A fresh baker is created for every (re)load so the cap applies to the
+ * whole set of loaded trails.
+ */
+public final class AnimationBaker {
+
+    private static final double TWO_PI = Math.PI * 2;
+
+    private final boolean enabled;
+    private final int maxFrames;
+    private final double phaseTolerance;
+    private final long maxDoubles;
+    private long bakedDoubles;
+
+    public AnimationBaker(boolean enabled, int maxFrames, double phaseTolerance, long maxBytes) {
+        this.enabled = enabled;
+        this.maxFrames = Math.max(1, maxFrames);
+        this.phaseTolerance = Math.max(0, phaseTolerance);
+        this.maxDoubles = Math.max(0, maxBytes) / Double.BYTES;
+    }
+
+    /**
+     * Read the {@code animation} section of config.yml. A missing section
+     * falls back to the defaults.
+     */
+    public static AnimationBaker fromConfig(ConfigurationSection sec) {
+        if (sec == null) return new AnimationBaker(true, 360, 0.05, 4096L * 1024);
+        return new AnimationBaker(
+                sec.getBoolean("bake", true),
+                sec.getInt("max-frames", 360),
+                sec.getDouble("phase-tolerance", 0.05),
+                sec.getLong("max-baked-kb", 4096) * 1024
+        );
+    }
+
+    /**
+     * Find the loop length of an animation advancing {@code step} radians per tick.
+     *
+     * @return the number of frames in one loop, or 0 if it cannot be baked
+     */
+    public int framesFor(double step) {
+        if (!enabled) return 0;
+        if (step == 0) return 1;
+
+        double a = Math.abs(step);
+        for (int n = 1; n <= maxFrames; n++) {
+            double turns = Math.rint(n * a / TWO_PI);
+            if (turns >= 1 && Math.abs(n * a - turns * TWO_PI) <= phaseTolerance) {
+                return n;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The per-tick step adjusted so that {@code frames} steps make an exact
+     * whole number of turns.
+     */
+    public static double snappedStep(double step, int frames) {
+        return TWO_PI * Math.rint(frames * step / TWO_PI) / frames;
+    }
+
+    /**
+     * Reserve room for a baked table against the memory cap.
+     *
+     * @param doubles number of doubles the table will hold
+     * @return true if the table fits and should be baked
+     */
+    public boolean reserve(long doubles) {
+        if (!enabled || bakedDoubles + doubles > maxDoubles) return false;
+        bakedDoubles += doubles;
+        return true;
+    }
+
+    /**
+     * @return total bytes reserved by baked tables so far
+     */
+    public long getBakedBytes() {
+        return bakedDoubles * Double.BYTES;
+    }
+}
@@ -0,0 +1,125 @@
+package com.usainsrht.elytratrails.model;
+
+import com.usainsrht.elytratrails.trail.EmitterContext;
+import org.bukkit.Particle;
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Emitter that draws a pair of mirrored, flapping butterfly wings around the
+ * anchor using the polar butterfly curve.
+ *
+ * <p>The curve only depends on {@code butterfly-points} and
+ * {@code butterfly-scale}, so it is baked into a table once at load time.
+ * Rendering scales the table by the current flap factor; the left wing
+ * reuses the right wing's entries with the x axis mirrored.
+ *
+ * <p>When the flap is periodic (see {@link AnimationBaker}) the scaled curve is
+ * additionally baked for every frame of the flap, so rendering is a pure
+ * table lookup.
+ */
+public final class ButterflyEmitter extends Emitter {
+
+    /** How far behind the anchor the wings are drawn. */
+    private static final double BACK_OFFSET = -0.4;
+
+    private final double scale;
+    private final double flapSpeed;
+    private final int points;
+
+    /** Right-wing curve at flap factor 1: right / up offsets per point. */
+    private final double[] curveRight;
+    private final double[] curveUp;
+
+    /** Baked right-wing (right, up) offsets per flap frame and point; null = live. */
+    private final double[] frames;
+    private final int frameCount;
+
+    ButterflyEmitter(ConfigurationSection sec, AnimationBaker baker) {
+        super(sec);
+        this.scale = sec.getDouble("butterfly-scale", 0.9);
+        this.flapSpeed = sec.getDouble("butterfly-flap-speed", 0.4);
+        this.points = Math.max(1, sec.getInt("butterfly-points", 16));
+
+        this.curveRight = new double[points];
+        this.curveUp = new double[points];
+        for (int i = 0; i < points; i++) {
+            double t = (double) i / points * Math.PI;
+
+            // Butterfly curve: r = |sin(t)| * (e^cos(t) - 2*cos(4t))
+            double r = Math.abs(Math.sin(t)) * (Math.exp(Math.cos(t)) - 2.0 * Math.cos(4 * t));
+            r *= scale;
+
+            curveRight[i] = Math.cos(t) * r;
+            curveUp[i] = Math.sin(t) * r * 0.5;
+        }
+
+        int count = baker.framesFor(flapSpeed);
+        if (count > 0 && baker.reserve((long) count * points * 2)) {
+            double step = AnimationBaker.snappedStep(flapSpeed, count);
+            frames = new double[count * points * 2];
+            for (int f = 0; f < count; f++) {
+                double flapFactor = 0.7 + 0.3 * Math.sin(f * step);
+                for (int i = 0; i < points; i++) {
+                    int idx = (f * points + i) * 2;
+                    frames[idx]     = curveRight[i] * flapFactor;
+                    frames[idx + 1] = curveUp[i] * flapFactor;
+                }
+            }
+            frameCount = count;
+        } else {
+            frames = null;
+            frameCount = 0;
+        }
+    }
+
+    @Override
+    public void render(EmitterContext ctx, double ax, double ay, double az, int pt) {
+        int stride = ctx.getStride();
+        if (frames != null) {
+            int base = (pt % frameCount) * points * 2;
+            for (int i = 0; i < points; i += stride) {
+                double xOff = frames[base + i * 2];
+                double yOff = frames[base + i * 2 + 1];
+                spawnPoint(ctx, ax, ay, az, xOff, yOff, pt + i);
+                spawnPoint(ctx, ax, ay, az, -xOff, yOff, pt + i);
+            }
+            return;
+        }
+
+        double flapFactor = 0.7 + 0.3 * Math.sin(pt * flapSpeed);
+
+        for (int i = 0; i < points; i += stride) {
+            double xOff = curveRight[i] * flapFactor;
+            double yOff = curveUp[i] * flapFactor;
+
+            // Right wing point, then left wing point (mirrored)
+            spawnPoint(ctx, ax, ay, az, xOff, yOff, pt + i);
+            spawnPoint(ctx, ax, ay, az, -xOff, yOff, pt + i);
+        }
+    }
+
+    private void spawnPoint(EmitterContext ctx, double ax, double ay, double az,
+                            double right, double up, int colorIdx) {
+        double x = ctx.pointX(ax, right, up, BACK_OFFSET);
+        double y = ctx.pointY(ay, right, up, BACK_OFFSET);
+        double z = ctx.pointZ(az, right, up, BACK_OFFSET);
+        if (dust) {
+            Particle.DustOptions dustOptions = resolveDust(colorIdx);
+            ctx.spawn(Particle.DUST, x, y, z, 1, 0, 0, 0, 0, dustOptions);
+        } else {
+            ctx.spawn(particle, x, y, z, 1, 0, 0, 0, speed);
+        }
+    }
+
+    @Override
+    public int getParticlesPerAnchor() {
+        return 2 * points;
+    }
+
+    // ── Getters ─────────────────────────────────────────────
+
+    public double getScale() { return scale; }
+    public double getFlapSpeed() { return flapSpeed; }
+    public int getPoints() { return points; }
+    public boolean isBaked() { return frames != null; }
+}
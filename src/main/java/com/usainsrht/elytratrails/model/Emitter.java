@@ -1,5 +1,6 @@
 package com.usainsrht.elytratrails.model;
 
+import com.usainsrht.elytratrails.trail.EmitterContext;
 import org.bukkit.Color;
 import org.bukkit.Particle;
 import org.bukkit.configuration.ConfigurationSection;
@@ -13,12 +14,20 @@ import java.util.List;
  * A single particle emitter within a trail. A trail may contain many emitters,
  * each with its own spawn-point, interval, particle type, shape behaviour, etc.
  *
+ * <p>Emitters are compiled once at load time into one of the shape-specific
+ * subclasses ({@link SimpleEmitter}, {@link SpiralEmitter},
+ * {@link ButterflyEmitter}, {@link WaveEmitter}). Each subclass only carries the
+ * parameters its shape uses, already validated and pre-derived, so the particle
+ * task calls a single {@link #render} per emitter instead of dispatching on the
+ * shape name every tick.
+ *
  * <p>Config keys (all under an emitter section):
  * <pre>
  *   spawn-point: WINGS | LEFT_WING | RIGHT_WING | FEET | BODY | BEHIND
  *   particle: DUST | FLAME | END_ROD | ...
  *   amount: 2
  *   interval: 1          # ticks between spawns (1 = every tick, 2 = every other, ...)
+ *   priority: 5          # 0-10; low-priority emitters are shed first under load
  *   speed: 0
  *   offset: {x, y, z}    # random spread
  *   size: 1.2             # dust size
@@ -44,98 +53,55 @@ import java.util.List;
  *   wing-coverage: 0.0     # 0 = tip only, 1 = full wing span (points along wing)
  * </pre>
  */
-public class Emitter {
+public abstract sealed class Emitter permits SimpleEmitter, SpiralEmitter, ButterflyEmitter, WaveEmitter {
+
+    /** Maximum number of interpolation steps along one wing (coverage 1.0). */
+    public static final int MAX_WING_STEPS = 6;
+
+    /** Shedding priority for emitters that do not set one. */
+    public static final int DEFAULT_PRIORITY = 5;
 
     // ── core ──
-    private final SpawnPoint spawnPoint;
-    private final Particle particle;
-    private final int amount;
-    private final int interval;
-    private final double speed;
-    private final Vector offset;
-    private final float size;
+    protected final SpawnPoint spawnPoint;
+    protected final Particle particle;
+    protected final int amount;
+    protected final int interval;
+    private final int priority;
+    protected final double speed;
+    protected final double offsetX;
+    protected final double offsetY;
+    protected final double offsetZ;
+    protected final float size;
 
     // ── colours ──
     private final List<Color> colors;
     private final int colorCycleRate;
-
-    // ── velocity ──
-    private final Vector velocity;
-    private final boolean randomDirection;
-    private final double randomDirectionSpeed;
-
-    // ── shape ──
-    private final String shape; // "none", "spiral", "butterfly", "wave"
-
-    // ── spiral params ──
-    private final double spiralRadius;
-    private final double spiralSpeed;
-    private final int spiralPoints;
-    private final boolean spiralExpand;
-    private final double spiralExpandSpeed;
-    private final double spiralExpandMin;
-    private final double spiralExpandMax;
-
-    // ── butterfly params ──
-    private final double butterflyScale;
-    private final double butterflyFlapSpeed;
-    private final int butterflyPoints;
-
-    // ── wave params ──
-    private final double waveAmplitude;
-    private final double waveFrequency;
+    /** True when the particle is DUST and is spawned with colour data. */
+    protected final boolean dust;
+    /** One pre-built DustOptions per colour (DUST only). */
+    private final Particle.DustOptions[] dustOptions;
+    /**
+     * Colour index for every tick of one full cycle
+     * ({@code colors * color-cycle-rate} entries); null when there is only
+     * one colour.
+     */
+    private final int[] colorCycle;
 
     // ── wing coverage ──
     private final double wingCoverage;
+    /** Interpolation steps along the wing; 0 = tip only. */
+    private final int wingSteps;
+    /** Anchors this emitter resolves to (WINGS counts both wings). */
+    private final int anchorCount;
 
-    @SuppressWarnings("ConstructorWithTooManyParameters")
-    private Emitter(SpawnPoint spawnPoint, Particle particle, int amount, int interval,
-                    double speed, Vector offset, float size, List<Color> colors, int colorCycleRate,
-                    Vector velocity, boolean randomDirection, double randomDirectionSpeed,
-                    String shape,
-                    double spiralRadius, double spiralSpeed, int spiralPoints,
-                    boolean spiralExpand, double spiralExpandSpeed, double spiralExpandMin, double spiralExpandMax,
-                    double butterflyScale, double butterflyFlapSpeed, int butterflyPoints,
-                    double waveAmplitude, double waveFrequency,
-                    double wingCoverage) {
-        this.spawnPoint = spawnPoint;
-        this.particle = particle;
-        this.amount = amount;
-        this.interval = Math.max(1, interval);
-        this.speed = speed;
-        this.offset = offset;
-        this.size = size;
-        this.colors = colors != null ? Collections.unmodifiableList(colors) : Collections.emptyList();
-        this.colorCycleRate = Math.max(1, colorCycleRate);
-        this.velocity = velocity;
-        this.randomDirection = randomDirection;
-        this.randomDirectionSpeed = randomDirectionSpeed;
-        this.shape = shape != null ? shape.toLowerCase() : "none";
-        this.spiralRadius = spiralRadius;
-        this.spiralSpeed = spiralSpeed;
-        this.spiralPoints = spiralPoints;
-        this.spiralExpand = spiralExpand;
-        this.spiralExpandSpeed = spiralExpandSpeed;
-        this.spiralExpandMin = spiralExpandMin;
-        this.spiralExpandMax = spiralExpandMax;
-        this.butterflyScale = butterflyScale;
-        this.butterflyFlapSpeed = butterflyFlapSpeed;
-        this.butterflyPoints = butterflyPoints;
-        this.waveAmplitude = waveAmplitude;
-        this.waveFrequency = waveFrequency;
-        this.wingCoverage = wingCoverage;
-    }
-
-    /**
-     * Parse an emitter from a YAML section.
-     */
-    public static Emitter fromConfig(ConfigurationSection sec) {
+    protected Emitter(ConfigurationSection sec) {
         SpawnPoint sp;
         try {
             sp = SpawnPoint.valueOf(sec.getString("spawn-point", "WINGS").toUpperCase());
         } catch (IllegalArgumentException e) {
             sp = SpawnPoint.WINGS;
         }
+        this.spawnPoint = sp;
 
         Particle particle;
         try {
@@ -143,61 +109,116 @@ public class Emitter {
         } catch (IllegalArgumentException e) {
             particle = Particle.DUST;
         }
+        if (particle != Particle.DUST && particle.getDataType() != Void.class) {
+            throw new IllegalArgumentException("particle " + particle + " requires extra data and is not supported");
+        }
+        this.particle = particle;
 
-        int amount = sec.getInt("amount", 1);
-        int interval = sec.getInt("interval", 1);
-        double speed = sec.getDouble("speed", 0);
+        this.amount = Math.max(0, sec.getInt("amount", 1));
+        this.interval = Math.max(1, sec.getInt("interval", 1));
+        this.priority = Math.max(0, Math.min(10, sec.getInt("priority", DEFAULT_PRIORITY)));
+        this.speed = sec.getDouble("speed", 0);
 
         ConfigurationSection offSec = sec.getConfigurationSection("offset");
-        Vector offset = new Vector(
-                offSec != null ? offSec.getDouble("x", 0) : 0,
-                offSec != null ? offSec.getDouble("y", 0) : 0,
-                offSec != null ? offSec.getDouble("z", 0) : 0
-        );
-        float size = (float) sec.getDouble("size", 1.0);
+        this.offsetX = offSec != null ? offSec.getDouble("x", 0) : 0;
+        this.offsetY = offSec != null ? offSec.getDouble("y", 0) : 0;
+        this.offsetZ = offSec != null ? offSec.getDouble("z", 0) : 0;
+        this.size = (float) sec.getDouble("size", 1.0);
 
         List<Color> colors = new ArrayList<>();
         for (String hex : sec.getStringList("colors")) {
             colors.add(parseHex(hex));
         }
-        int colorCycleRate = sec.getInt("color-cycle-rate", 1);
+        // DUST cannot be spawned without colour data
+        if (particle == Particle.DUST && colors.isEmpty()) {
+            colors.add(Color.WHITE);
+        }
+        this.colors = Collections.unmodifiableList(colors);
+        this.colorCycleRate = Math.max(1, sec.getInt("color-cycle-rate", 1));
+        this.dust = particle == Particle.DUST;
+
+        if (dust) {
+            dustOptions = new Particle.DustOptions[colors.size()];
+            for (int i = 0; i < dustOptions.length; i++) {
+                dustOptions[i] = new Particle.DustOptions(colors.get(i), size);
+            }
+        } else {
+            dustOptions = null;
+        }
+        if (dust && colors.size() > 1) {
+            colorCycle = new int[colors.size() * colorCycleRate];
+            for (int t = 0; t < colorCycle.length; t++) {
+                colorCycle[t] = t / colorCycleRate;
+            }
+        } else {
+            colorCycle = null;
+        }
 
-        ConfigurationSection velSec = sec.getConfigurationSection("velocity");
-        Vector velocity = new Vector(
-                velSec != null ? velSec.getDouble("x", 0) : 0,
-                velSec != null ? velSec.getDouble("y", 0) : 0,
-                velSec != null ? velSec.getDouble("z", 0) : 0
+        this.wingCoverage = Math.max(0.0, Math.min(1.0, sec.getDouble("wing-coverage", 0.0)));
+        this.wingSteps = wingCoverage <= 0.0 ? 0 : Math.max(1, (int) (wingCoverage * MAX_WING_STEPS));
+        int perWing = wingSteps == 0 ? 1 : wingSteps + 1;
+        this.anchorCount = switch (spawnPoint) {
+            case WINGS -> 2 * perWing;
+            case LEFT_WING, RIGHT_WING -> perWing;
+            default -> 1;
+        };
+    }
+
+    /**
+     * Parse and compile an emitter from a YAML section.
+     *
+     * @param baker bakes periodic animations into keyframe tables
+     */
+    public static Emitter fromConfig(ConfigurationSection sec, AnimationBaker baker) {
+        String shape = sec.getString("shape", "none").toLowerCase();
+        return switch (shape) {
+            case "spiral"    -> new SpiralEmitter(sec, baker);
+            case "butterfly" -> new ButterflyEmitter(sec, baker);
+            case "wave"      -> new WaveEmitter(sec, baker);
+            default          -> new SimpleEmitter(sec);
+        };
+    }
+
+    /**
+     * Spawn this emitter's particles for one anchor.
+     *
+     * @param ctx the player's world, centre and body basis for this tick
+     * @param ax  anchor x offset relative to the player centre
+     * @param ay  anchor y offset relative to the player centre
+     * @param az  anchor z offset relative to the player centre
+     * @param pt  the player's glide tick counter
+     */
+    public abstract void render(EmitterContext ctx, double ax, double ay, double az, int pt);
+
+    /**
+     * Particles spawned per anchor each time this emitter fires, at full detail.
+     */
+    public abstract int getParticlesPerAnchor();
+
+    /**
+     * Average particles this emitter spawns per tick at full detail, used to
+     * budget expensive trails.
+     */
+    public double getCost() {
+        return (double) getParticlesPerAnchor() * anchorCount / interval;
+    }
+
+    /**
+     * Resolve the pre-built DustOptions for the current colour (cycling).
+     * Only valid for DUST emitters.
+     */
+    protected Particle.DustOptions resolveDust(int tick) {
+        if (colorCycle == null) return dustOptions[0];
+        return dustOptions[colorCycle[tick % colorCycle.length]];
+    }
+
+    static Vector readVector(ConfigurationSection sec, String path) {
+        ConfigurationSection vSec = sec.getConfigurationSection(path);
+        return new Vector(
+                vSec != null ? vSec.getDouble("x", 0) : 0,
+                vSec != null ? vSec.getDouble("y", 0) : 0,
+                vSec != null ? vSec.getDouble("z", 0) : 0
         );
-        boolean randomDir = sec.getBoolean("random-direction", false);
-        double randomDirSpeed = sec.getDouble("random-direction-speed", 0.05);
-
-        String shape = sec.getString("shape", "none");
-
-        double spiralRadius = sec.getDouble("spiral-radius", 0.8);
-        double spiralSpeed = sec.getDouble("spiral-speed", 0.5);
-        int spiralPoints = sec.getInt("spiral-points", 2);
-        boolean spiralExpand = sec.getBoolean("spiral-expand", false);
-        double spiralExpandSpeed = sec.getDouble("spiral-expand-speed", 0.04);
-        double spiralExpandMin = sec.getDouble("spiral-expand-min", 0.3);
-        double spiralExpandMax = sec.getDouble("spiral-expand-max", 1.2);
-
-        double bfScale = sec.getDouble("butterfly-scale", 0.9);
-        double bfFlap = sec.getDouble("butterfly-flap-speed", 0.4);
-        int bfPoints = sec.getInt("butterfly-points", 16);
-
-        double waveAmp = sec.getDouble("wave-amplitude", 0.5);
-        double waveFreq = sec.getDouble("wave-frequency", 0.3);
-
-        double wingCoverage = sec.getDouble("wing-coverage", 0.0);
-
-        return new Emitter(sp, particle, amount, interval, speed, offset, size,
-                colors, colorCycleRate, velocity, randomDir, randomDirSpeed,
-                shape,
-                spiralRadius, spiralSpeed, spiralPoints,
-                spiralExpand, spiralExpandSpeed, spiralExpandMin, spiralExpandMax,
-                bfScale, bfFlap, bfPoints,
-                waveAmp, waveFreq,
-                wingCoverage);
     }
 
     private static Color parseHex(String hex) {
@@ -217,27 +238,13 @@ public class Emitter {
     public Particle getParticle() { return particle; }
     public int getAmount() { return amount; }
     public int getInterval() { return interval; }
+    public int getPriority() { return priority; }
     public double getSpeed() { return speed; }
-    public Vector getOffset() { return offset.clone(); }
+    public Vector getOffset() { return new Vector(offsetX, offsetY, offsetZ); }
     public float getSize() { return size; }
     public List<Color> getColors() { return colors; }
     public int getColorCycleRate() { return colorCycleRate; }
-    public Vector getVelocity() { return velocity.clone(); }
-    public boolean isRandomDirection() { return randomDirection; }
-    public double getRandomDirectionSpeed() { return randomDirectionSpeed; }
-    public String getShape() { return shape; }
-    public double getSpiralRadius() { return spiralRadius; }
-    public double getSpiralSpeed() { return spiralSpeed; }
-    public int getSpiralPoints() { return spiralPoints; }
-    public boolean isSpiralExpand() { return spiralExpand; }
-    public double getSpiralExpandSpeed() { return spiralExpandSpeed; }
-    public double getSpiralExpandMin() { return spiralExpandMin; }
-    public double getSpiralExpandMax() { return spiralExpandMax; }
-    public double getButterflyScale() { return butterflyScale; }
-    public double getButterflyFlapSpeed() { return butterflyFlapSpeed; }
-    public int getButterflyPoints() { return butterflyPoints; }
-    public double getWaveAmplitude() { return waveAmplitude; }
-    public double getWaveFrequency() { return waveFrequency; }
     public double getWingCoverage() { return wingCoverage; }
+    public int getWingSteps() { return wingSteps; }
+    public int getAnchorCount() { return anchorCount; }
 }
-
@@ -0,0 +1,87 @@
+package com.usainsrht.elytratrails.model;
+
+import com.usainsrht.elytratrails.trail.EmitterContext;
+import org.bukkit.Particle;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.util.Vector;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Emitter without a shape: a burst of particles at the anchor, optionally
+ * colour-cycling (DUST), with a fixed or random per-particle velocity.
+ */
+public final class SimpleEmitter extends Emitter {
+
+    /** How non-DUST particles are released; decided once at load time. */
+    private enum Motion { SPREAD, FIXED_VELOCITY, RANDOM_DIRECTION }
+
+    private final Motion motion;
+    private final double velocityX;
+    private final double velocityY;
+    private final double velocityZ;
+    private final double randomDirectionSpeed;
+
+    SimpleEmitter(ConfigurationSection sec) {
+        super(sec);
+        Vector velocity = readVector(sec, "velocity");
+        this.velocityX = velocity.getX();
+        this.velocityY = velocity.getY();
+        this.velocityZ = velocity.getZ();
+        this.randomDirectionSpeed = sec.getDouble("random-direction-speed", 0.05);
+
+        if (sec.getBoolean("random-direction", false)) {
+            motion = Motion.RANDOM_DIRECTION;
+        } else if (!velocity.isZero()) {
+            motion = Motion.FIXED_VELOCITY;
+        } else {
+            motion = Motion.SPREAD;
+        }
+    }
+
+    @Override
+    public void render(EmitterContext ctx, double ax, double ay, double az, int pt) {
+        double x = ctx.getOriginX() + ax;
+        double y = ctx.getOriginY() + ay;
+        double z = ctx.getOriginZ() + az;
+
+        if (dust) {
+            Particle.DustOptions dustOptions = resolveDust(pt);
+            ctx.spawn(Particle.DUST, x, y, z, ctx.scaleCount(amount),
+                    offsetX, offsetY, offsetZ, speed, dustOptions);
+            return;
+        }
+
+        switch (motion) {
+            case RANDOM_DIRECTION -> {
+                // Spawn one at a time with a random unit-vector velocity
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0, n = ctx.scaleCount(amount); i < n; i++) {
+                    double theta = random.nextDouble(0, 2 * Math.PI);
+                    double phi = Math.acos(2 * random.nextDouble() - 1);
+                    double sinPhi = Math.sin(phi) * randomDirectionSpeed;
+                    ctx.spawn(particle, x, y, z, 0,
+                            sinPhi * Math.cos(theta),
+                            sinPhi * Math.sin(theta),
+                            Math.cos(phi) * randomDirectionSpeed,
+                            randomDirectionSpeed);
+                }
+            }
+            case FIXED_VELOCITY -> ctx.spawn(particle, x, y, z,
+                    0, velocityX, velocityY, velocityZ, 1);
+            case SPREAD -> ctx.spawn(particle, x, y, z,
+                    ctx.scaleCount(amount), offsetX, offsetY, offsetZ, speed);
+        }
+    }
+
+    @Override
+    public int getParticlesPerAnchor() {
+        return dust || motion != Motion.FIXED_VELOCITY ? amount : 1;
+    }
+
+    // ── Getters ─────────────────────────────────────────────
+
+    public Vector getVelocity() { return new Vector(velocityX, velocityY, velocityZ); }
+    public boolean isRandomDirection() { return motion == Motion.RANDOM_DIRECTION; }
+    public double getRandomDirectionSpeed() { return randomDirectionSpeed; }
+}
@@ -0,0 +1,128 @@
+package com.usainsrht.elytratrails.model;
+
+import com.usainsrht.elytratrails.trail.EmitterContext;
+import org.bukkit.Particle;
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Emitter that traces a circle around the anchor in the body's right/up
+ * plane, optionally with a pulsing radius.
+ *
+ * <p>Rotation and pulsing are baked independently (see {@link AnimationBaker}):
+ * the rotation as unit-circle offsets for every point of every frame, the
+ * pulse as one radius per frame. Either falls back to live evaluation when it
+ * cannot be baked.
+ */
+public final class SpiralEmitter extends Emitter {
+
+    private final double radius;
+    private final double angularSpeed;
+    private final int points;
+    private final boolean expand;
+    private final double expandSpeed;
+    private final double expandMin;
+    /** Pre-derived {@code expandMax - expandMin}. */
+    private final double expandRange;
+
+    /** Baked rotation: (right, up) unit offsets per frame and point; null = live. */
+    private final double[] circle;
+    private final int circleFrames;
+    /** Baked pulsing radius per frame; null = live (or not pulsing). */
+    private final double[] radii;
+
+    SpiralEmitter(ConfigurationSection sec, AnimationBaker baker) {
+        super(sec);
+        this.radius = sec.getDouble("spiral-radius", 0.8);
+        this.angularSpeed = sec.getDouble("spiral-speed", 0.5);
+        this.points = Math.max(1, sec.getInt("spiral-points", 2));
+        this.expand = sec.getBoolean("spiral-expand", false);
+        this.expandSpeed = sec.getDouble("spiral-expand-speed", 0.04);
+        this.expandMin = sec.getDouble("spiral-expand-min", 0.3);
+        this.expandRange = sec.getDouble("spiral-expand-max", 1.2) - expandMin;
+
+        // Rotation advances points * speed per tick
+        double tickStep = points * angularSpeed;
+        int frames = baker.framesFor(tickStep);
+        if (frames > 0 && baker.reserve((long) frames * points * 2)) {
+            double step = AnimationBaker.snappedStep(tickStep, frames);
+            circle = new double[frames * points * 2];
+            for (int f = 0; f < frames; f++) {
+                for (int i = 0; i < points; i++) {
+                    double angle = f * step + i * angularSpeed;
+                    int idx = (f * points + i) * 2;
+                    circle[idx]     = Math.cos(angle);
+                    circle[idx + 1] = Math.sin(angle);
+                }
+            }
+            circleFrames = frames;
+        } else {
+            circle = null;
+            circleFrames = 0;
+        }
+
+        int pulseFrames = expand ? baker.framesFor(expandSpeed) : 0;
+        if (pulseFrames > 0 && baker.reserve(pulseFrames)) {
+            double step = AnimationBaker.snappedStep(expandSpeed, pulseFrames);
+            radii = new double[pulseFrames];
+            for (int f = 0; f < pulseFrames; f++) {
+                radii[f] = expandMin + expandRange * (0.5 + 0.5 * Math.sin(f * step));
+            }
+        } else {
+            radii = null;
+        }
+    }
+
+    @Override
+    public void render(EmitterContext ctx, double ax, double ay, double az, int pt) {
+        double r = radius;
+        if (radii != null) {
+            r = radii[pt % radii.length];
+        } else if (expand) {
+            // Pulsing radius using sine
+            r = expandMin + expandRange * (0.5 + 0.5 * Math.sin(pt * expandSpeed));
+        }
+
+        int base = circle != null ? (pt % circleFrames) * points * 2 : 0;
+        int count = ctx.scaleCount(amount);
+        int stride = ctx.getStride();
+        for (int i = 0; i < points; i += stride) {
+            double x;
+            double y;
+            if (circle != null) {
+                x = circle[base + i * 2] * r;
+                y = circle[base + i * 2 + 1] * r;
+            } else {
+                double angle = (pt * points + i) * angularSpeed;
+                x = Math.cos(angle) * r;
+                y = Math.sin(angle) * r;
+            }
+
+            double px = ctx.pointX(ax, x, y, 0);
+            double py = ctx.pointY(ay, x, y, 0);
+            double pz = ctx.pointZ(az, x, y, 0);
+
+            if (dust) {
+                Particle.DustOptions dustOptions = resolveDust(pt + i);
+                ctx.spawn(Particle.DUST, px, py, pz, count, 0, 0, 0, 0, dustOptions);
+            } else {
+                ctx.spawn(particle, px, py, pz, count, 0, 0, 0, speed);
+            }
+        }
+    }
+
+    @Override
+    public int getParticlesPerAnchor() {
+        return points * amount;
+    }
+
+    // ── Getters ─────────────────────────────────────────────
+
+    public double getRadius() { return radius; }
+    public double getAngularSpeed() { return angularSpeed; }
+    public int getPoints() { return points; }
+    public boolean isExpand() { return expand; }
+    public double getExpandSpeed() { return expandSpeed; }
+    public double getExpandMin() { return expandMin; }
+    public double getExpandMax() { return expandMin + expandRange; }
+    public boolean isBaked() { return circle != null && (!expand || radii != null); }
+}
@@ -15,28 +15,42 @@ import java.util.List;
 public class Trail {
 
     private final String id;
+    /** Stable number from the trail index; the trail's bit in {@link TrailBits}. */
+    private final int index;
     private final String displayName;
     private final TrailType trailType;
     private final List<Emitter> emitters;
     private final double price;
     private final Material icon;
     private final String permission;
+    /** Average particles per tick across all emitters, at full detail. */
+    private final double cost;
 
-    public Trail(String id, String displayName, TrailType trailType,
+    public Trail(String id, int index, String displayName, TrailType trailType,
                  List<Emitter> emitters, double price, Material icon) {
         this.id = id;
+        this.index = index;
         this.displayName = displayName;
         this.trailType = trailType;
         this.emitters = emitters != null ? Collections.unmodifiableList(emitters) : Collections.emptyList();
         this.price = price;
         this.icon = icon;
         this.permission = "elytratrails.trail." + id;
+
+        double total = 0;
+        for (Emitter emitter : this.emitters) {
+            total += emitter.getCost();
+        }
+        this.cost = total;
     }
 
     /**
      * Parse a Trail from a ConfigurationSection keyed by its id.
+     *
+     * @param index the id's stable number from the trail index
+     * @param baker bakes periodic emitter animations into keyframe tables
      */
-    public static Trail fromConfig(String id, ConfigurationSection section) {
+    public static Trail fromConfig(String id, int index, ConfigurationSection section, AnimationBaker baker) {
         String displayName = section.getString("display-name", id);
 
         TrailType trailType;
@@ -62,22 +76,24 @@ public class Trail {
             for (String key : emittersSec.getKeys(false)) {
                 ConfigurationSection emSec = emittersSec.getConfigurationSection(key);
                 if (emSec != null) {
-                    emitters.add(Emitter.fromConfig(emSec));
+                    emitters.add(Emitter.fromConfig(emSec, baker));
                 }
             }
         }
 
-        return new Trail(id, displayName, trailType, emitters, price, icon);
+        return new Trail(id, index, displayName, trailType, emitters, price, icon);
     }
 
     // ── Getters ──────────────────────────────────────────────
 
     public String getId() { return id; }
+    public int getIndex() { return index; }
     public String getDisplayName() { return displayName; }
     public TrailType getTrailType() { return trailType; }
     public List<Emitter> getEmitters() { return emitters; }
     public double getPrice() { return price; }
     public Material getIcon() { return icon; }
     public String getPermission() { return permission; }
+    public double getCost() { return cost; }
 }
 
@@ -0,0 +1,101 @@
+package com.usainsrht.elytratrails.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable set of trails, one bit per trail index (see
+ * {@link com.usainsrht.elytratrails.storage.TrailIndex}). A player with
+ * unlocks among the first 64 trails costs a single {@code long}; players
+ * with none share {@link #EMPTY}.
+ *
+ * <p>Being immutable, an instance can be published to other threads
+ * without locking: changes produce a new instance via {@link #with}.
+ */
+public final class TrailBits {
+
+    public static final TrailBits EMPTY = new TrailBits(new long[0]);
+
+    private final long[] words;
+
+    private TrailBits(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * @param words bit words, lowest index in bit 0 of word 0; copied
+     */
+    public static TrailBits of(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) length--;
+        return length == 0 ? EMPTY : new TrailBits(Arrays.copyOf(words, length));
+    }
+
+    public boolean contains(int index) {
+        if (index < 0) return false;
+        int word = index >>> 6;
+        return word < words.length && (words[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return a set that also contains {@code index} (this one if it already does)
+     */
+    public TrailBits with(int index) {
+        if (index < 0) throw new IllegalArgumentException("Negative trail index " + index);
+        if (contains(index)) return this;
+        int word = index >>> 6;
+        long[] copy = Arrays.copyOf(words, Math.max(words.length, word + 1));
+        copy[word] |= 1L << index;
+        return new TrailBits(copy);
+    }
+
+    /**
+     * @return a set without {@code index} (this one if it does not contain it)
+     */
+    public TrailBits without(int index) {
+        if (!contains(index)) return this;
+        long[] copy = words.clone();
+        copy[index >>> 6] &= ~(1L << index);
+        return of(copy);
+    }
+
+    /**
+     * Call {@code action} with every index in the set, in ascending order.
+     */
+    public void forEach(IntConsumer action) {
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) size += Long.bitCount(word);
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    /**
+     * @return a copy of the bit words, without trailing zero words
+     */
+    public long[] toLongArray() {
+        return words.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof TrailBits other && Arrays.equals(words, other.words));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
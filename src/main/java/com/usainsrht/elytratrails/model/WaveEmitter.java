@@ -0,0 +1,66 @@
+package com.usainsrht.elytratrails.model;
+
+import com.usainsrht.elytratrails.trail.EmitterContext;
+import org.bukkit.Particle;
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Emitter that bobs the anchor up and down along the body's up axis
+ * following a sine wave. Periodic waves are baked into one offset per frame
+ * (see {@link AnimationBaker}).
+ */
+public final class WaveEmitter extends Emitter {
+
+    private final double amplitude;
+    private final double frequency;
+
+    /** Baked up-offset per frame; null = live. */
+    private final double[] offsets;
+
+    WaveEmitter(ConfigurationSection sec, AnimationBaker baker) {
+        super(sec);
+        this.amplitude = sec.getDouble("wave-amplitude", 0.5);
+        this.frequency = sec.getDouble("wave-frequency", 0.3);
+
+        int frames = baker.framesFor(frequency);
+        if (frames > 0 && baker.reserve(frames)) {
+            double step = AnimationBaker.snappedStep(frequency, frames);
+            offsets = new double[frames];
+            for (int f = 0; f < frames; f++) {
+                offsets[f] = Math.sin(f * step) * amplitude;
+            }
+        } else {
+            offsets = null;
+        }
+    }
+
+    @Override
+    public void render(EmitterContext ctx, double ax, double ay, double az, int pt) {
+        double wave = offsets != null
+                ? offsets[pt % offsets.length]
+                : Math.sin(pt * frequency) * amplitude;
+        double x = ctx.pointX(ax, 0, wave, 0);
+        double y = ctx.pointY(ay, 0, wave, 0);
+        double z = ctx.pointZ(az, 0, wave, 0);
+
+        if (dust) {
+            Particle.DustOptions dustOptions = resolveDust(pt);
+            ctx.spawn(Particle.DUST, x, y, z, ctx.scaleCount(amount),
+                    offsetX, offsetY, offsetZ, speed, dustOptions);
+        } else {
+            ctx.spawn(particle, x, y, z, ctx.scaleCount(amount),
+                    offsetX, offsetY, offsetZ, speed);
+        }
+    }
+
+    @Override
+    public int getParticlesPerAnchor() {
+        return amount;
+    }
+
+    // ── Getters ─────────────────────────────────────────────
+
+    public double getAmplitude() { return amplitude; }
+    public double getFrequency() { return frequency; }
+    public boolean isBaked() { return offsets != null; }
+}
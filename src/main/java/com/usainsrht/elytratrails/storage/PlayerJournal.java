@@ -0,0 +1,278 @@
+package com.usainsrht.elytratrails.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of player data changes, so a change is on disk within
+ * milliseconds even though the main store is only written every flush.
+ *
+ * <p>Each entry is the player's whole {@link PlayerRecord} after the
+ * change, so replay is idempotent: the last entry per player wins.
+ * Appends are queued and written by one journal thread, which writes
+ * everything queued since its last pass and then forces the file once
+ * (group commit), so a burst of changes costs one fsync.
+ *
+ * <p>The journal is a sequence of segment files ({@code journal/<n>.log}).
+ * Compaction is driven by the owner's flush: {@link #rotate()} seals the
+ * current segment, the owner saves its pending changes (a superset of
+ * what the sealed segments hold) to the main store, then
+ * {@link #deleteSealed()} drops them. Segments left over from a crash are
+ * sealed on open; {@link #replay()} reads them back.
+ *
+ * <p>Entry format: payload length (int), CRC-32 of the payload (int),
+ * payload = UUID (two longs) + {@link RecordCodec} record. A torn or
+ * corrupt entry ends the segment.
+ */
+public class PlayerJournal {
+
+    private static final String EXTENSION = ".log";
+
+    private record Entry(UUID uuid, PlayerRecord record, CompletableFuture<Void> written) {
+    }
+
+    private final Path dir;
+    private final TrailIndex index;
+
+    /** Guards the segment files: current channel and sealed list. */
+    private final Object ioLock = new Object();
+    private final List<Path> sealed = new ArrayList<>();
+    private FileChannel channel;
+    private Path current;
+    private long sequence;
+
+    /** Guarded by {@code this}. */
+    private List<Entry> pending = new ArrayList<>();
+    private boolean closed;
+
+    private final Thread thread;
+
+    public PlayerJournal(Path dir, TrailIndex index) throws IOException {
+        this.dir = dir;
+        this.index = index;
+        Files.createDirectories(dir);
+
+        List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path file : files) {
+                long n = sequenceOf(file);
+                if (n < 0) continue;
+                existing.add(file);
+                sequence = Math.max(sequence, n);
+            }
+        }
+        existing.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        sealed.addAll(existing);
+        openSegment();
+
+        this.thread = new Thread(this::run, "ElytraTrails-Journal");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue a player's record for the journal.
+     *
+     * @return completes once the entry is forced to disk, or exceptionally
+     *         if it could not be written
+     */
+    public CompletableFuture<Void> append(UUID uuid, PlayerRecord record) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed) {
+                written.completeExceptionally(new IOException("Journal is closed"));
+                return written;
+            }
+            pending.add(new Entry(uuid, record, written));
+            notifyAll();
+        }
+        return written;
+    }
+
+    /**
+     * Read every sealed segment, oldest first.
+     *
+     * @return the last record per player
+     */
+    public Map<UUID, PlayerRecord> replay() throws IOException {
+        Map<UUID, PlayerRecord> records = new LinkedHashMap<>();
+        synchronized (ioLock) {
+            for (Path segment : sealed) {
+                try (InputStream file = Files.newInputStream(segment);
+                     DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+                    readSegment(in, records);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Seal the current segment and start a new one. Entries appended
+     * after this call land in the new segment.
+     */
+    public void rotate() throws IOException {
+        synchronized (ioLock) {
+            channel.close();
+            sealed.add(current);
+            openSegment();
+        }
+    }
+
+    /**
+     * Delete all sealed segments; call once their contents are in the
+     * main store.
+     */
+    public void deleteSealed() throws IOException {
+        synchronized (ioLock) {
+            for (Path segment : sealed) {
+                Files.deleteIfExists(segment);
+            }
+            sealed.clear();
+        }
+    }
+
+    /**
+     * Write what is still queued and stop the journal thread. The current
+     * segment is deleted if nothing was written to it since the last
+     * rotation.
+     */
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (ioLock) {
+            boolean empty = channel.size() == 0;
+            channel.close();
+            if (empty) Files.deleteIfExists(current);
+        }
+    }
+
+    // ── Internal ────────────────────────────────────────────
+
+    private void run() {
+        while (true) {
+            List<Entry> batch;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                if (pending.isEmpty()) return;
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            write(batch);
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        IOException failure = null;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 48);
+            DataOutputStream out = new DataOutputStream(bytes);
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(40);
+            DataOutputStream payloadOut = new DataOutputStream(payload);
+            CRC32 crc = new CRC32();
+            for (Entry entry : batch) {
+                payload.reset();
+                payloadOut.writeLong(entry.uuid().getMostSignificantBits());
+                payloadOut.writeLong(entry.uuid().getLeastSignificantBits());
+                RecordCodec.write(payloadOut, entry.record(), index);
+
+                byte[] data = payload.toByteArray();
+                crc.reset();
+                crc.update(data);
+                out.writeInt(data.length);
+                out.writeInt((int) crc.getValue());
+                out.write(data);
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            synchronized (ioLock) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        for (Entry entry : batch) {
+            if (failure == null) {
+                entry.written().complete(null);
+            } else {
+                entry.written().completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void readSegment(DataInputStream in, Map<UUID, PlayerRecord> records) throws IOException {
+        CRC32 crc = new CRC32();
+        while (true) {
+            byte[] data;
+            int checksum;
+            try {
+                int length = in.readInt();
+                if (length <= 0 || length > 4096) return;
+                checksum = in.readInt();
+                data = new byte[length];
+                in.readFully(data);
+            } catch (EOFException e) {
+                return;  // clean end, or a torn final entry
+            }
+
+            crc.reset();
+            crc.update(data);
+            if ((int) crc.getValue() != checksum) return;
+
+            DataInputStream entry = new DataInputStream(new ByteArrayInputStream(data));
+            UUID uuid = new UUID(entry.readLong(), entry.readLong());
+            records.put(uuid, RecordCodec.read(entry, index));
+        }
+    }
+
+    private void openSegment() throws IOException {
+        sequence++;
+        current = dir.resolve(String.format("%016d", sequence) + EXTENSION);
+        channel = FileChannel.open(current, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.usainsrht.elytratrails.storage;
+
+import com.usainsrht.elytratrails.model.TrailBits;
+
+/**
+ * Immutable snapshot of one player's persisted data, as handed between
+ * {@link com.usainsrht.elytratrails.config.PlayerDataManager} and a {@link PlayerStorage}.
+ *
+ * @param activeTrail active trail id, or null for none
+ * @param unlocked    unlocked trails by {@link TrailIndex} number
+ */
+public record PlayerRecord(String activeTrail, TrailBits unlocked) {
+
+    public PlayerRecord {
+        if (unlocked == null) unlocked = TrailBits.EMPTY;
+    }
+}
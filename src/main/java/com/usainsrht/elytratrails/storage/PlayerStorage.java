@@ -0,0 +1,43 @@
+package com.usainsrht.elytratrails.storage;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Where player data lives on disk. Implementations are called from the
+ * player data writer thread and from whatever thread loads a player, so
+ * they must be thread-safe.
+ */
+public interface PlayerStorage {
+
+    /**
+     * @return the player's stored data, or null if they have none
+     */
+    PlayerRecord load(UUID uuid) throws IOException;
+
+    /**
+     * Persist a batch of players. Either every record in the batch is
+     * durable when this returns, or it throws.
+     */
+    void save(Map<UUID, PlayerRecord> batch) throws IOException;
+
+    /**
+     * Visit every stored player, e.g. for migration or export. The action
+     * may be slow (file writes), so implementations must not hold the lock
+     * that {@link #load} and {@link #save} use while calling it.
+     */
+    void forEach(BiConsumer<UUID, PlayerRecord> action) throws IOException;
+
+    /**
+     * Release resources. No other method is called afterwards.
+     */
+    default void close() throws IOException {
+    }
+
+    /**
+     * @return short name for logs and commands
+     */
+    String getName();
+}
@@ -0,0 +1,39 @@
+package com.usainsrht.elytratrails.storage;
+
+import com.usainsrht.elytratrails.model.TrailBits;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary form of a {@link PlayerRecord}, shared by the sharded
+ * player files and the journal: the active trail's {@link TrailIndex}
+ * number as an int (-1 for none), then an unsigned byte word count and
+ * that many longs of unlock bits.
+ */
+final class RecordCodec {
+
+    private RecordCodec() {
+    }
+
+    static void write(DataOutput out, PlayerRecord record, TrailIndex index) throws IOException {
+        long[] words = record.unlocked().toLongArray();
+        if (words.length > 255) throw new IOException("Too many trail indexes to store");
+
+        out.writeInt(record.activeTrail() != null ? index.assign(record.activeTrail()) : -1);
+        out.writeByte(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    static PlayerRecord read(DataInput in, TrailIndex index) throws IOException {
+        String active = index.idOf(in.readInt());
+        long[] words = new long[in.readUnsignedByte()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return new PlayerRecord(active, TrailBits.of(words));
+    }
+}
@@ -0,0 +1,107 @@
+package com.usainsrht.elytratrails.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * One small binary file per player, bucketed into 256 directories by the
+ * first two hex digits of the UUID ({@code players/3f/3f2a…e1.dat}).
+ * Loading or saving a player touches only that player's file, so both are
+ * O(1) in the total number of players. Each file is replaced atomically.
+ *
+ * <p>File format (big-endian): format version byte (2), then the record
+ * in {@link RecordCodec} form: active trail number and unlock bits.
+ */
+public class ShardedPlayerStorage implements PlayerStorage {
+
+    private static final int FORMAT_VERSION = 2;
+    private static final String EXTENSION = ".dat";
+
+    private final Path root;
+    private final TrailIndex index;
+
+    public ShardedPlayerStorage(Path root, TrailIndex index) throws IOException {
+        this.root = root;
+        this.index = index;
+        Files.createDirectories(root);
+    }
+
+    @Override
+    public PlayerRecord load(UUID uuid) throws IOException {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(pathOf(uuid));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return decode(data);
+    }
+
+    @Override
+    public void save(Map<UUID, PlayerRecord> batch) throws IOException {
+        for (Map.Entry<UUID, PlayerRecord> entry : batch.entrySet()) {
+            Path path = pathOf(entry.getKey());
+            Files.createDirectories(path.getParent());
+            AtomicFiles.write(path, encode(entry.getValue()));
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<UUID, PlayerRecord> action) throws IOException {
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(shard, "*" + EXTENSION)) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        UUID uuid;
+                        try {
+                            uuid = UUID.fromString(name.substring(0, name.length() - EXTENSION.length()));
+                        } catch (IllegalArgumentException e) {
+                            continue;
+                        }
+                        action.accept(uuid, decode(Files.readAllBytes(file)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "sharded";
+    }
+
+    private Path pathOf(UUID uuid) {
+        String id = uuid.toString();
+        return root.resolve(id.substring(0, 2)).resolve(id + EXTENSION);
+    }
+
+    private byte[] encode(PlayerRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            RecordCodec.write(out, record, index);
+        }
+        return bytes.toByteArray();
+    }
+
+    private PlayerRecord decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported player file version " + version);
+            }
+            return RecordCodec.read(in, index);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.usainsrht.elytratrails.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Player data in an embedded SQLite database (the driver ships with the
+ * server). Normalized schema: one row per player for the active trail and
+ * one row per unlocked trail, both keyed by UUID. Trails are stored by id,
+ * not by index number, so the tables stay meaningful on their own.
+ *
+ * <p>All access goes through prepared statements on a single connection,
+ * serialized on this object. A save runs as one transaction of batched
+ * statements; in practice it is called from the player data writer thread,
+ * which makes that the database's dedicated I/O thread. {@link #forEach}
+ * reads a page of players at a time and hands them out with the lock
+ * released, so a long export never holds up loads and saves.
+ */
+public class SqlitePlayerStorage implements PlayerStorage {
+
+    /** Players read per {@link #forEach} page. */
+    private static final int PAGE_SIZE = 500;
+
+    private final TrailIndex index;
+    private final Connection connection;
+    private final PreparedStatement selectPlayer;
+    private final PreparedStatement selectUnlocks;
+    private final PreparedStatement upsertPlayer;
+    private final PreparedStatement deleteUnlocks;
+    private final PreparedStatement insertUnlock;
+    private final PreparedStatement selectPage;
+
+    public SqlitePlayerStorage(Path file, TrailIndex index) throws IOException {
+        this.index = index;
+        try {
+            Class.forName("org.sqlite.JDBC");
+            connection = DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                // FULL syncs the WAL on every commit: save() must be durable when it returns,
+                // since the caller drops the journal segments it covers right after
+                statement.execute("PRAGMA synchronous=FULL");
+                statement.execute("CREATE TABLE IF NOT EXISTS et_players ("
+                        + "uuid TEXT PRIMARY KEY, active_trail TEXT)");
+                statement.execute("CREATE TABLE IF NOT EXISTS et_unlocks ("
+                        + "uuid TEXT NOT NULL, trail_id TEXT NOT NULL, PRIMARY KEY (uuid, trail_id))");
+            }
+            selectPlayer = connection.prepareStatement("SELECT active_trail FROM et_players WHERE uuid = ?");
+            selectUnlocks = connection.prepareStatement("SELECT trail_id FROM et_unlocks WHERE uuid = ?");
+            upsertPlayer = connection.prepareStatement("INSERT INTO et_players (uuid, active_trail) VALUES (?, ?) "
+                    + "ON CONFLICT(uuid) DO UPDATE SET active_trail = excluded.active_trail");
+            deleteUnlocks = connection.prepareStatement("DELETE FROM et_unlocks WHERE uuid = ?");
+            insertUnlock = connection.prepareStatement("INSERT INTO et_unlocks (uuid, trail_id) VALUES (?, ?)");
+            // Keyset pagination: the next PAGE_SIZE players after a uuid, with their unlocks
+            selectPage = connection.prepareStatement("SELECT p.uuid, p.active_trail, u.trail_id FROM "
+                    + "(SELECT uuid, active_trail FROM et_players WHERE uuid > ? ORDER BY uuid LIMIT ?) p "
+                    + "LEFT JOIN et_unlocks u ON u.uuid = p.uuid ORDER BY p.uuid");
+        } catch (ClassNotFoundException | SQLException e) {
+            throw new IOException("Could not open SQLite database " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized PlayerRecord load(UUID uuid) throws IOException {
+        String id = uuid.toString();
+        try {
+            String active;
+            selectPlayer.setString(1, id);
+            try (ResultSet rs = selectPlayer.executeQuery()) {
+                if (!rs.next()) return null;
+                active = rs.getString(1);
+            }
+
+            List<String> unlocked = new ArrayList<>();
+            selectUnlocks.setString(1, id);
+            try (ResultSet rs = selectUnlocks.executeQuery()) {
+                while (rs.next()) {
+                    unlocked.add(rs.getString(1));
+                }
+            }
+            return new PlayerRecord(active, index.toBits(unlocked));
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void save(Map<UUID, PlayerRecord> batch) throws IOException {
+        try {
+            connection.setAutoCommit(false);
+            for (Map.Entry<UUID, PlayerRecord> entry : batch.entrySet()) {
+                String id = entry.getKey().toString();
+                PlayerRecord record = entry.getValue();
+
+                upsertPlayer.setString(1, id);
+                upsertPlayer.setString(2, record.activeTrail());
+                upsertPlayer.addBatch();
+
+                deleteUnlocks.setString(1, id);
+                deleteUnlocks.addBatch();
+
+                for (String trailId : index.toIds(record.unlocked())) {
+                    insertUnlock.setString(1, id);
+                    insertUnlock.setString(2, trailId);
+                    insertUnlock.addBatch();
+                }
+            }
+            upsertPlayer.executeBatch();
+            deleteUnlocks.executeBatch();
+            insertUnlock.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // the original failure is what matters
+            }
+            throw new IOException(e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // connection is unusable anyway
+            }
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<UUID, PlayerRecord> action) throws IOException {
+        String after = "";
+        while (true) {
+            Map<String, PlayerRecord> page = readPage(after);
+            if (page.isEmpty()) return;
+            for (Map.Entry<String, PlayerRecord> entry : page.entrySet()) {
+                after = entry.getKey();
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(entry.getKey());
+                } catch (IllegalArgumentException e) {
+                    continue;  // skip invalid keys
+                }
+                action.accept(uuid, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return up to {@link #PAGE_SIZE} players whose uuid sorts after {@code after}, in order
+     */
+    private synchronized Map<String, PlayerRecord> readPage(String after) throws IOException {
+        Map<String, PlayerRecord> page = new LinkedHashMap<>();
+        try {
+            selectPage.setString(1, after);
+            selectPage.setInt(2, PAGE_SIZE);
+            try (ResultSet rs = selectPage.executeQuery()) {
+                String current = null;
+                String active = null;
+                List<String> unlocked = new ArrayList<>();
+                while (rs.next()) {
+                    String id = rs.getString(1);
+                    if (!id.equals(current)) {
+                        if (current != null) page.put(current, new PlayerRecord(active, index.toBits(unlocked)));
+                        current = id;
+                        active = rs.getString(2);
+                        unlocked = new ArrayList<>();
+                    }
+                    String trailId = rs.getString(3);
+                    if (trailId != null) unlocked.add(trailId);
+                }
+                if (current != null) page.put(current, new PlayerRecord(active, index.toBits(unlocked)));
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+        return page;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "sqlite";
+    }
+}
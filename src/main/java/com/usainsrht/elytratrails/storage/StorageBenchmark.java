@@ -0,0 +1,153 @@
+package com.usainsrht.elytratrails.storage;
+
+import com.usainsrht.elytratrails.model.TrailBits;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Times every storage backend on the same synthetic player set inside a
+ * scratch directory, so backends can be compared on the server's own disk.
+ *
+ * <p>Phases, per backend:
+ * <ul>
+ *   <li>write – all players, in flush-sized batches</li>
+ *   <li>flush – one batch of changed players, i.e. a steady-state flush</li>
+ *   <li>open  – closing and reopening the store</li>
+ *   <li>load  – random single-player loads, as on join</li>
+ *   <li>scan  – visiting every player, as for migration or export</li>
+ * </ul>
+ * Runs synchronously; call it off the main thread.
+ */
+public final class StorageBenchmark {
+
+    /** Players per save call, the same as a migration batch. */
+    private static final int BATCH_SIZE = 500;
+    private static final int RANDOM_LOADS = 1000;
+
+    public record Result(String backend, long writeMs, long flushMs, long openMs, long loadMs, long scanMs) {
+    }
+
+    private interface Opener {
+        PlayerStorage open(Path dir) throws IOException;
+    }
+
+    private StorageBenchmark() {
+    }
+
+    /**
+     * @param dir      scratch directory; created, and deleted afterwards
+     * @param players  number of synthetic players
+     * @param trailIds trail ids to draw active and unlocked trails from
+     */
+    public static List<Result> run(Path dir, int players, List<String> trailIds) throws IOException {
+        List<Result> results = new ArrayList<>();
+        try {
+            TrailIndex index = new TrailIndex(dir.resolve("trail-index.yml"));
+            index.assignAll(trailIds);
+
+            Map<String, Opener> backends = new LinkedHashMap<>();
+            backends.put("yaml", d -> new YamlPlayerStorage(d.resolve("players.yml").toFile(), index));
+            backends.put("sharded", d -> new ShardedPlayerStorage(d.resolve("players"), index));
+            backends.put("sqlite", d -> new SqlitePlayerStorage(d.resolve("players.db"), index));
+
+            Random random = new Random(42);
+            Map<UUID, PlayerRecord> data = new HashMap<>(players * 2);
+            for (int i = 0; i < players; i++) {
+                data.put(new UUID(random.nextLong(), random.nextLong()), randomRecord(random, trailIds, index));
+            }
+            List<UUID> ids = new ArrayList<>(data.keySet());
+
+            for (Map.Entry<String, Opener> backend : backends.entrySet()) {
+                Path scratch = dir.resolve(backend.getKey());
+                Files.createDirectories(scratch);
+                results.add(measure(backend.getKey(), backend.getValue(), scratch, data, ids, trailIds, index, random));
+            }
+        } finally {
+            delete(dir);
+        }
+        return results;
+    }
+
+    private static Result measure(String name, Opener opener, Path dir, Map<UUID, PlayerRecord> data,
+                                  List<UUID> ids, List<String> trailIds, TrailIndex index,
+                                  Random random) throws IOException {
+        PlayerStorage storage = opener.open(dir);
+        long start = System.nanoTime();
+        Map<UUID, PlayerRecord> batch = new HashMap<>(BATCH_SIZE * 2);
+        for (Map.Entry<UUID, PlayerRecord> entry : data.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= BATCH_SIZE) {
+                storage.save(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) storage.save(batch);
+        long writeMs = elapsed(start);
+
+        batch.clear();
+        for (int i = 0; i < Math.min(BATCH_SIZE, ids.size()); i++) {
+            batch.put(ids.get(random.nextInt(ids.size())), randomRecord(random, trailIds, index));
+        }
+        start = System.nanoTime();
+        storage.save(batch);
+        long flushMs = elapsed(start);
+
+        start = System.nanoTime();
+        storage.close();
+        storage = opener.open(dir);
+        long openMs = elapsed(start);
+
+        try {
+            start = System.nanoTime();
+            for (int i = 0; i < RANDOM_LOADS; i++) {
+                storage.load(ids.get(random.nextInt(ids.size())));
+            }
+            long loadMs = elapsed(start);
+
+            int[] seen = {0};
+            start = System.nanoTime();
+            storage.forEach((uuid, record) -> seen[0]++);
+            long scanMs = elapsed(start);
+
+            return new Result(name, writeMs, flushMs, openMs, loadMs, scanMs);
+        } finally {
+            storage.close();
+        }
+    }
+
+    private static PlayerRecord randomRecord(Random random, List<String> trailIds, TrailIndex index) {
+        if (trailIds.isEmpty()) return new PlayerRecord(null, TrailBits.EMPTY);
+        TrailBits unlocked = TrailBits.EMPTY;
+        String active = null;
+        int count = random.nextInt(Math.min(trailIds.size(), 8) + 1);
+        for (int i = 0; i < count; i++) {
+            active = trailIds.get(random.nextInt(trailIds.size()));
+            unlocked = unlocked.with(index.indexOf(active));
+        }
+        return new PlayerRecord(active, unlocked);
+    }
+
+    private static long elapsed(long start) {
+        return (System.nanoTime() - start) / 1_000_000L;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
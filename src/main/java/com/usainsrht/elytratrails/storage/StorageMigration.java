@@ -0,0 +1,102 @@
+package com.usainsrht.elytratrails.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Copies every player from one storage backend to another in fixed-size
+ * batches, or streams them into a YAML file, so memory stays bounded
+ * regardless of the number of players.
+ */
+public final class StorageMigration {
+
+    /** Players written per {@link PlayerStorage#save} call. */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Anything that can visit player records, e.g. a {@link PlayerStorage}
+     * or a streamed file.
+     */
+    @FunctionalInterface
+    public interface Source {
+        void forEach(BiConsumer<UUID, PlayerRecord> action) throws IOException;
+    }
+
+    private StorageMigration() {
+    }
+
+    /**
+     * @param progress called with the running total after each batch; may be null
+     * @return the number of players copied
+     */
+    public static int copy(PlayerStorage from, PlayerStorage to, IntConsumer progress) throws IOException {
+        return copy((Source) from::forEach, to, progress);
+    }
+
+    /**
+     * @param progress called with the running total after each batch; may be null
+     * @return the number of players copied
+     */
+    public static int copy(Source from, PlayerStorage to, IntConsumer progress) throws IOException {
+        Map<UUID, PlayerRecord> batch = new HashMap<>(BATCH_SIZE * 2);
+        int[] copied = {0};
+        try {
+            from.forEach((uuid, record) -> {
+                batch.put(uuid, record);
+                if (batch.size() >= BATCH_SIZE) {
+                    flush(to, batch, copied, progress);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (!batch.isEmpty()) {
+            try {
+                flush(to, batch, copied, progress);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        return copied[0];
+    }
+
+    /**
+     * Stream players into a YAML file and commit it.
+     *
+     * @param progress called with the running total every batch; may be null
+     * @return the number of players written
+     */
+    public static int copy(Source from, YamlPlayerWriter to, IntConsumer progress) throws IOException {
+        int[] copied = {0};
+        try {
+            from.forEach((uuid, record) -> {
+                try {
+                    to.write(uuid, record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (++copied[0] % BATCH_SIZE == 0 && progress != null) progress.accept(copied[0]);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        to.commit();
+        return copied[0];
+    }
+
+    private static void flush(PlayerStorage to, Map<UUID, PlayerRecord> batch, int[] copied, IntConsumer progress) {
+        try {
+            to.save(batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        copied[0] += batch.size();
+        batch.clear();
+        if (progress != null) progress.accept(copied[0]);
+    }
+}
@@ -0,0 +1,37 @@
+package com.usainsrht.elytratrails.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records which backend holds the live player data, in
+ * {@code storage-backend.txt} in the plugin folder. Startup compares it
+ * with {@code storage.backend}: a different backend is filled from the
+ * recorded one before it receives any writes, and one-off conversions
+ * (importing a legacy players.yml) run exactly once, never over data
+ * written since.
+ */
+public final class StorageState {
+
+    private static final String FILE = "storage-backend.txt";
+
+    private StorageState() {
+    }
+
+    /**
+     * @return the recorded backend name, or null if none was recorded yet
+     */
+    public static String read(Path folder) throws IOException {
+        Path file = folder.resolve(FILE);
+        if (!Files.isRegularFile(file)) return null;
+        String name = Files.readString(file, StandardCharsets.UTF_8).trim().toLowerCase();
+        return name.isEmpty() ? null : name;
+    }
+
+    public static void write(Path folder, String backend) throws IOException {
+        Files.createDirectories(folder);
+        AtomicFiles.write(folder.resolve(FILE), (backend + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,149 @@
+package com.usainsrht.elytratrails.storage;
+
+import com.usainsrht.elytratrails.model.TrailBits;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stable trail id ↔ number mapping, persisted in trail-index.yml, so
+ * unlocks can be stored as bits that survive reordering, removing or
+ * re-adding trails in trails.yml. Numbers are handed out once and never
+ * reused; an id that disappears keeps its number in case it comes back.
+ *
+ * <p>A new number is written to disk before it is returned, so no stored
+ * bit can ever refer to a number the file does not know. Lookups are
+ * lock-free; assignment is serialized.
+ */
+public final class TrailIndex {
+
+    private final Path file;
+
+    private volatile Map<String, Integer> indexes;
+    private volatile String[] ids;
+
+    public TrailIndex(Path file) throws IOException {
+        this.file = file;
+        Map<String, Integer> loaded = new HashMap<>();
+        String[] byIndex = new String[0];
+        if (Files.isRegularFile(file)) {
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(file.toFile());
+            ConfigurationSection section = config.getConfigurationSection("trails");
+            if (section != null) {
+                for (String id : section.getKeys(false)) {
+                    int index = section.getInt(id, -1);
+                    if (index < 0) throw new IOException("Invalid index for trail '" + id + "' in " + file);
+                    if (index >= byIndex.length) byIndex = Arrays.copyOf(byIndex, index + 1);
+                    if (byIndex[index] != null) {
+                        throw new IOException("Trails '" + byIndex[index] + "' and '" + id
+                                + "' share index " + index + " in " + file);
+                    }
+                    byIndex[index] = id;
+                    loaded.put(id, index);
+                }
+            }
+        }
+        this.indexes = loaded;
+        this.ids = byIndex;
+    }
+
+    /**
+     * @return the trail's number, or -1 if it has none yet
+     */
+    public int indexOf(String id) {
+        Integer index = indexes.get(id);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return the trail id with this number, or null if unknown
+     */
+    public String idOf(int index) {
+        String[] current = ids;
+        return index >= 0 && index < current.length ? current[index] : null;
+    }
+
+    /**
+     * @return the trail's number, assigning and persisting a new one if needed
+     */
+    public int assign(String id) throws IOException {
+        int index = indexOf(id);
+        if (index >= 0) return index;
+        assignAll(List.of(id));
+        return indexOf(id);
+    }
+
+    /**
+     * Give every id without a number the next free one, with a single write.
+     */
+    public synchronized void assignAll(Collection<String> newIds) throws IOException {
+        Map<String, Integer> next = null;
+        String[] nextIds = ids;
+        for (String id : newIds) {
+            if ((next != null ? next : indexes).containsKey(id)) continue;
+            if (next == null) next = new HashMap<>(indexes);
+            next.put(id, nextIds.length);
+            nextIds = Arrays.copyOf(nextIds, nextIds.length + 1);
+            nextIds[nextIds.length - 1] = id;
+        }
+        if (next == null) return;
+
+        write(nextIds);
+        ids = nextIds;
+        indexes = next;
+    }
+
+    /**
+     * Convert trail ids (e.g. from a format that stores ids) to bits,
+     * assigning numbers to ids seen for the first time.
+     */
+    public TrailBits toBits(Collection<String> trailIds) throws IOException {
+        assignAll(trailIds);
+        TrailBits bits = TrailBits.EMPTY;
+        for (String id : trailIds) {
+            bits = bits.with(indexOf(id));
+        }
+        return bits;
+    }
+
+    /**
+     * Convert bits back to trail ids, in index order.
+     */
+    public List<String> toIds(TrailBits bits) {
+        List<String> result = new ArrayList<>(bits.size());
+        bits.forEach(index -> {
+            String id = idOf(index);
+            if (id != null) result.add(id);
+        });
+        return result;
+    }
+
+    /**
+     * @return how many numbers have been handed out
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    private void write(String[] byIndex) throws IOException {
+        YamlConfiguration config = new YamlConfiguration();
+        for (int i = 0; i < byIndex.length; i++) {
+            if (byIndex[i] != null) config.set("trails." + byIndex[i], i);
+        }
+        String content = "# Stable numbers for trail ids, used to store unlocks compactly.\n"
+                + "# Do not edit or delete: stored player data refers to these numbers.\n"
+                + config.saveToString();
+        Files.createDirectories(file.getParent());
+        AtomicFiles.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,133 @@
+package com.usainsrht.elytratrails.storage;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.events.CollectionEndEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the players.yml format one player at a time from the YAML event
+ * stream, without building the document tree, so memory stays constant
+ * however large the file is. Unknown keys are skipped.
+ */
+public final class YamlPlayerReader implements StorageMigration.Source {
+
+    private final Path file;
+    private final TrailIndex index;
+
+    public YamlPlayerReader(Path file, TrailIndex index) {
+        this.file = file;
+        this.index = index;
+    }
+
+    @Override
+    public void forEach(BiConsumer<UUID, PlayerRecord> action) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            // The default 3 MB document limit is far below a large server's players.yml
+            LoaderOptions options = new LoaderOptions();
+            options.setCodePointLimit(Integer.MAX_VALUE);
+            Iterator<Event> events = new Yaml(options).parse(reader).iterator();
+
+            // Skip stream and document start; an empty file has no mapping
+            Event event;
+            do {
+                event = next(events);
+                if (event == null) return;
+            } while (!(event instanceof CollectionStartEvent));
+            if (!(event instanceof MappingStartEvent)) {
+                throw new IOException(file.getFileName() + " is not a mapping of players");
+            }
+
+            while ((event = next(events)) != null && !(event instanceof MappingEndEvent)) {
+                String key = event instanceof ScalarEvent scalar ? scalar.getValue() : null;
+                Event value = next(events);
+                if (key == null || !(value instanceof MappingStartEvent)) {
+                    skip(value, events);
+                    continue;
+                }
+
+                PlayerRecord record = readPlayer(events);
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(key);
+                } catch (IllegalArgumentException e) {
+                    continue;  // skip invalid keys
+                }
+                action.accept(uuid, record);
+            }
+        }
+    }
+
+    private PlayerRecord readPlayer(Iterator<Event> events) throws IOException {
+        String active = null;
+        List<String> unlocked = new ArrayList<>();
+        Event event;
+        while ((event = next(events)) != null && !(event instanceof MappingEndEvent)) {
+            String key = event instanceof ScalarEvent scalar ? scalar.getValue() : null;
+            Event value = next(events);
+            if ("active".equals(key) && value instanceof ScalarEvent scalar) {
+                active = isNull(scalar) ? null : scalar.getValue();
+            } else if ("unlocked".equals(key) && value instanceof SequenceStartEvent) {
+                while ((event = next(events)) != null && !(event instanceof SequenceEndEvent)) {
+                    if (event instanceof ScalarEvent scalar && !isNull(scalar)) {
+                        unlocked.add(scalar.getValue());
+                    } else {
+                        skip(event, events);
+                    }
+                }
+            } else {
+                skip(value, events);
+            }
+        }
+        return new PlayerRecord(active, index.toBits(unlocked));
+    }
+
+    private static boolean isNull(ScalarEvent scalar) {
+        if (!scalar.isPlain()) return false;
+        String value = scalar.getValue();
+        return value.isEmpty() || value.equals("~") || value.equalsIgnoreCase("null");
+    }
+
+    /**
+     * Skip the rest of a value whose first event has been read.
+     */
+    private static void skip(Event first, Iterator<Event> events) throws IOException {
+        if (!(first instanceof CollectionStartEvent)) return;
+        int depth = 1;
+        while (depth > 0) {
+            Event event = next(events);
+            if (event == null) return;
+            if (event instanceof CollectionStartEvent) depth++;
+            else if (event instanceof CollectionEndEvent) depth--;
+        }
+    }
+
+    /**
+     * @return the next event, or null at the end of the stream
+     */
+    private static Event next(Iterator<Event> events) throws IOException {
+        try {
+            return events.hasNext() ? events.next() : null;
+        } catch (RuntimeException e) {
+            // SnakeYAML reports syntax errors unchecked
+            throw new IOException("Malformed YAML: " + e.getMessage(), e);
+        }
+    }
+}
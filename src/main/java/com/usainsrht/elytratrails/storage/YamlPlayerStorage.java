@@ -0,0 +1,87 @@
+package com.usainsrht.elytratrails.storage;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * The original single-file format: every player under their UUID in
+ * players.yml. The whole file is parsed on open and rewritten on every
+ * save, so cost grows with the total number of players. Unlocks are kept
+ * as trail ids so the file stays readable and hand-editable.
+ */
+public class YamlPlayerStorage implements PlayerStorage {
+
+    private final File file;
+    private final TrailIndex index;
+    private final YamlConfiguration config;
+    /** Orders whole saves (snapshot and file write) so an older one never lands last. */
+    private final Object writeLock = new Object();
+
+    public YamlPlayerStorage(File file, TrailIndex index) {
+        this.file = file;
+        this.index = index;
+        this.config = file.exists() ? YamlConfiguration.loadConfiguration(file) : new YamlConfiguration();
+    }
+
+    @Override
+    public synchronized PlayerRecord load(UUID uuid) throws IOException {
+        String path = uuid.toString();
+        if (!config.contains(path)) return null;
+        return new PlayerRecord(config.getString(path + ".active", null),
+                index.toBits(config.getStringList(path + ".unlocked")));
+    }
+
+    @Override
+    public void save(Map<UUID, PlayerRecord> batch) throws IOException {
+        synchronized (writeLock) {
+            String content;
+            synchronized (this) {
+                for (Map.Entry<UUID, PlayerRecord> entry : batch.entrySet()) {
+                    String path = entry.getKey().toString();
+                    PlayerRecord record = entry.getValue();
+                    config.set(path + ".active", record.activeTrail());
+                    config.set(path + ".unlocked", index.toIds(record.unlocked()));
+                }
+                content = config.saveToString();
+            }
+            file.getParentFile().mkdirs();
+            AtomicFiles.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Visits a snapshot of the player keys, reading each player under the
+     * lock but calling {@code action} without it, so loads and saves go on
+     * during a long export.
+     */
+    @Override
+    public void forEach(BiConsumer<UUID, PlayerRecord> action) throws IOException {
+        List<String> keys;
+        synchronized (this) {
+            keys = new ArrayList<>(config.getKeys(false));
+        }
+        for (String key : keys) {
+            UUID uuid;
+            try {
+                uuid = UUID.fromString(key);
+            } catch (IllegalArgumentException e) {
+                continue;  // skip invalid keys
+            }
+            PlayerRecord record = load(uuid);
+            if (record != null) action.accept(uuid, record);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "yaml";
+    }
+}
@@ -0,0 +1,83 @@
+package com.usainsrht.elytratrails.storage;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Writes the players.yml format sequentially, one player at a time, into a
+ * temporary file that {@link #commit()} moves over the target. Memory use
+ * does not depend on the number of players.
+ */
+public final class YamlPlayerWriter implements Closeable {
+
+    private final Path target;
+    private final Path temp;
+    private final TrailIndex index;
+    private final FileChannel channel;
+    private final Writer out;
+    private boolean committed;
+
+    public YamlPlayerWriter(Path target, TrailIndex index) throws IOException {
+        this.target = target;
+        this.temp = AtomicFiles.tempFor(target);
+        this.index = index;
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    public void write(UUID uuid, PlayerRecord record) throws IOException {
+        out.write(quote(uuid.toString()));
+        out.write(":\n");
+        if (record.activeTrail() != null) {
+            out.write("  active: ");
+            out.write(quote(record.activeTrail()));
+            out.write('\n');
+        }
+        if (record.unlocked().isEmpty()) {
+            out.write("  unlocked: []\n");
+        } else {
+            out.write("  unlocked:\n");
+            for (String id : index.toIds(record.unlocked())) {
+                out.write("  - ");
+                out.write(quote(id));
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Force everything to disk and replace the target.
+     */
+    public void commit() throws IOException {
+        out.flush();
+        channel.force(true);
+        out.close();
+        AtomicFiles.replace(temp, target);
+        committed = true;
+    }
+
+    /**
+     * Release the file; without a {@link #commit()} the partial output is deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (committed) return;
+        out.close();
+        Files.deleteIfExists(temp);
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,287 @@
+package com.usainsrht.elytratrails.trail;
+
+import com.usainsrht.elytratrails.model.Emitter;
+import com.usainsrht.elytratrails.model.SpawnPoint;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Everything an {@link com.usainsrht.elytratrails.model.Emitter} needs to
+ * render one tick for one gliding player: the world to spawn into, the
+ * players who receive the particles, the player's centre, the (rolled) body
+ * basis and the anchor points.
+ *
+ * <p>All geometry is kept in primitive fields and a reusable anchor buffer.
+ * One instance is owned by the particle task (and one by each render
+ * worker) and re-targeted with {@link #update} for each player, so the
+ * geometry stage allocates nothing in steady state. Instances are not
+ * thread-safe.
+ *
+ * <p>Render workers {@linkplain #setBatch record} particles into a
+ * {@link ParticleBatch} instead of sending them, so packets are only ever
+ * sent from the thread that owns the glider.
+ */
+public final class EmitterContext {
+
+    /* ── Wing geometry constants (blocks, relative to player centre) ── */
+    private static final double WING_LENGTH     = 1.6;   // full wingspan from centre
+    private static final double WING_BACK       = -0.3;  // how far behind the body
+    private static final double WING_UP         = 0.15;  // slight upward tilt
+    private static final double FEET_DOWN       = -0.8;  // feet below centre
+    private static final double BEHIND_DIST     = 1.0;   // "behind" distance
+
+    /** Most anchors a single emitter can resolve to: both wings, body to tip. */
+    public static final int MAX_ANCHORS = 2 * (Emitter.MAX_WING_STEPS + 1);
+
+    private World world;
+
+    // ── delivery ──
+    private List<Player> receivers;
+    private Player source;
+    private boolean force;
+    /** Record into this batch (for this band) instead of sending; null = send. */
+    private ParticleBatch batch;
+    private int batchBand;
+
+    // ── level of detail ──
+    private double detail = 1.0;
+    private int stride = 1;
+
+    // ── accounting ──
+    private int spawned;
+
+    // ── origin ──
+    private double originX, originY, originZ;
+
+    // ── body basis ──
+    private double forwardX, forwardY, forwardZ;
+    private double rightX, rightY, rightZ;
+    private double upX, upY, upZ;
+
+    // ── wing tips (relative to origin) ──
+    private double leftTipX, leftTipY, leftTipZ;
+    private double rightTipX, rightTipY, rightTipZ;
+
+    // ── anchor scratch buffer: x, y, z triples ──
+    private final double[] anchors = new double[MAX_ANCHORS * 3];
+    private int anchorCount;
+
+    /**
+     * Re-target this context at a player and recompute the body basis.
+     *
+     * @param yaw   player yaw in degrees
+     * @param pitch player pitch in degrees
+     * @param roll  estimated body roll in radians (positive = tilting right)
+     */
+    public void update(World world, double x, double y, double z,
+                       float yaw, float pitch, double roll) {
+        this.world = world;
+        this.originX = x;
+        this.originY = y;
+        this.originZ = z;
+
+        double yawRad = Math.toRadians(yaw);
+        double pitchRad = Math.toRadians(pitch);
+        double sinYaw = Math.sin(yawRad);
+        double cosYaw = Math.cos(yawRad);
+        double cosPitch = Math.cos(pitchRad);
+
+        // Same direction Location#getDirection() would produce
+        forwardX = -sinYaw * cosPitch;
+        forwardY = -Math.sin(pitchRad);
+        forwardZ = cosYaw * cosPitch;
+
+        // "right" in the horizontal plane (perpendicular to yaw), rotated by roll
+        double sinRoll = Math.sin(roll);
+        double cosRoll = Math.cos(roll);
+        double flatRightX = -cosYaw;
+        double flatRightZ = -sinYaw;
+        rightX = flatRightX * cosRoll;
+        rightY = sinRoll;
+        rightZ = flatRightZ * cosRoll;
+        upX = -flatRightX * sinRoll;
+        upY = cosRoll;
+        upZ = -flatRightZ * sinRoll;
+
+        leftTipX  = -rightX * WING_LENGTH + forwardX * WING_BACK + upX * WING_UP;
+        leftTipY  = -rightY * WING_LENGTH + forwardY * WING_BACK + upY * WING_UP;
+        leftTipZ  = -rightZ * WING_LENGTH + forwardZ * WING_BACK + upZ * WING_UP;
+        rightTipX =  rightX * WING_LENGTH + forwardX * WING_BACK + upX * WING_UP;
+        rightTipY =  rightY * WING_LENGTH + forwardY * WING_BACK + upY * WING_UP;
+        rightTipZ =  rightZ * WING_LENGTH + forwardZ * WING_BACK + upZ * WING_UP;
+    }
+
+    /**
+     * Set who receives the particles spawned through this context.
+     *
+     * @param receivers players to send the particles to
+     * @param source    the glider; receivers that cannot see it are skipped
+     * @param force     send beyond the client's default 32-block particle range
+     */
+    public void setReceivers(List<Player> receivers, Player source, boolean force) {
+        this.receivers = receivers;
+        this.source = source;
+        this.force = force;
+    }
+
+    /**
+     * Record particles into a batch for later delivery instead of sending
+     * them, tagged with the LOD band they are for.
+     *
+     * @param batch the batch to fill, or null to send directly again
+     */
+    void setBatch(ParticleBatch batch, int band) {
+        this.batch = batch;
+        this.batchBand = band;
+    }
+
+    /**
+     * Set the level of detail for the current receivers.
+     *
+     * @param detail density multiplier in (0, 1]; 1 = full detail
+     */
+    public void setDetail(double detail) {
+        this.detail = detail;
+        this.stride = detail >= 1.0 ? 1 : Math.max(1, (int) Math.round(1.0 / detail));
+    }
+
+    /**
+     * Scale a particle count by the current detail, keeping at least one.
+     */
+    public int scaleCount(int count) {
+        if (detail >= 1.0 || count <= 1) return count;
+        return Math.max(1, (int) Math.round(count * detail));
+    }
+
+    /**
+     * Scale wing-coverage steps by the current detail; tip-only stays tip-only.
+     */
+    public int scaleSteps(int steps) {
+        if (detail >= 1.0 || steps <= 0) return steps;
+        return Math.max(1, (int) Math.round(steps * detail));
+    }
+
+    /**
+     * How many shape points to advance per rendered point at the current
+     * detail (1 = every point).
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Spawn a particle for the current receivers only.
+     */
+    public void spawn(Particle particle, double x, double y, double z, int count,
+                      double offsetX, double offsetY, double offsetZ, double extra) {
+        spawn(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, null);
+    }
+
+    /**
+     * Spawn a particle with extra data (e.g. DustOptions) for the current
+     * receivers only.
+     */
+    public void spawn(Particle particle, double x, double y, double z, int count,
+                      double offsetX, double offsetY, double offsetZ, double extra, Object data) {
+        if (batch != null) {
+            batch.add(batchBand, particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, data);
+        } else {
+            world.spawnParticle(particle, receivers, source, x, y, z, count,
+                    offsetX, offsetY, offsetZ, extra, data, force);
+        }
+        // count 0 is a single directional particle
+        spawned += Math.max(1, count);
+    }
+
+    /**
+     * Reset the spawned-particle counter.
+     *
+     * @return the count before the reset
+     */
+    public int resetSpawned() {
+        int n = spawned;
+        spawned = 0;
+        return n;
+    }
+
+    /**
+     * @return particles spawned through this context since the last reset
+     */
+    public int getSpawned() {
+        return spawned;
+    }
+
+    /**
+     * Fill the anchor buffer for a spawn point (WINGS expands to
+     * LEFT_WING + RIGHT_WING).
+     *
+     * @param wingSteps interpolation steps along each wing; 0 = tip only
+     * @return the number of anchors written
+     */
+    public int resolveAnchors(SpawnPoint spawnPoint, int wingSteps) {
+        anchorCount = 0;
+        switch (spawnPoint) {
+            case LEFT_WING  -> addWing(leftTipX, leftTipY, leftTipZ, wingSteps);
+            case RIGHT_WING -> addWing(rightTipX, rightTipY, rightTipZ, wingSteps);
+            case WINGS -> {
+                addWing(leftTipX, leftTipY, leftTipZ, wingSteps);
+                addWing(rightTipX, rightTipY, rightTipZ, wingSteps);
+            }
+            case FEET   -> addAnchor(0, FEET_DOWN, 0);
+            case BODY   -> addAnchor(0, 0, 0);
+            case BEHIND -> addAnchor(-forwardX * BEHIND_DIST, -forwardY * BEHIND_DIST, -forwardZ * BEHIND_DIST);
+        }
+        return anchorCount;
+    }
+
+    /**
+     * Points along a wing, linearly interpolated from the body (t = 0) out
+     * to the tip (t = 1). steps 0 = tip only.
+     */
+    private void addWing(double tipX, double tipY, double tipZ, int steps) {
+        if (steps <= 0) {
+            addAnchor(tipX, tipY, tipZ);
+            return;
+        }
+        for (int i = 0; i <= steps; i++) {
+            double t = (double) i / steps;
+            addAnchor(tipX * t, tipY * t, tipZ * t);
+        }
+    }
+
+    private void addAnchor(double x, double y, double z) {
+        int i = anchorCount * 3;
+        anchors[i]     = x;
+        anchors[i + 1] = y;
+        anchors[i + 2] = z;
+        anchorCount++;
+    }
+
+    /* ── Point transform: anchor + local (right, up, forward) offset → world ── */
+
+    public double pointX(double anchorX, double right, double up, double forward) {
+        return originX + anchorX + right * rightX + up * upX + forward * forwardX;
+    }
+
+    public double pointY(double anchorY, double right, double up, double forward) {
+        return originY + anchorY + right * rightY + up * upY + forward * forwardY;
+    }
+
+    public double pointZ(double anchorZ, double right, double up, double forward) {
+        return originZ + anchorZ + right * rightZ + up * upZ + forward * forwardZ;
+    }
+
+    // ── Getters ─────────────────────────────────────────────
+
+    public World getWorld() { return world; }
+    public double getOriginX() { return originX; }
+    public double getOriginY() { return originY; }
+    public double getOriginZ() { return originZ; }
+    public int getAnchorCount() { return anchorCount; }
+    public double getAnchorX(int i) { return anchors[i * 3]; }
+    public double getAnchorY(int i) { return anchors[i * 3 + 1]; }
+    public double getAnchorZ(int i) { return anchors[i * 3 + 2]; }
+}
@@ -0,0 +1,150 @@
+package com.usainsrht.elytratrails.trail;
+
+import com.usainsrht.elytratrails.model.Emitter;
+import com.usainsrht.elytratrails.model.Trail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which of a glider's emitters fire on a given tick.
+ *
+ * <p>Emitters with {@code interval > 1} used to fire on
+ * {@code pt % interval == 0}, so players who started gliding together fired
+ * their heavy emitters on the same ticks. With staggering enabled each
+ * player/emitter pair instead gets a phase offset, handed out round-robin
+ * per interval, which spreads interval-N work evenly over N ticks. Due
+ * emitters are found through each session's {@link EmitterWheel}.
+ *
+ * <p>The scheduler also measures per-tick emitter load (the nominal
+ * particles of every emitter that fired) over a rolling window, so the
+ * effect of {@code render.stagger} can be compared with {@code /elytra budget}.
+ */
+public class EmitterScheduler {
+
+    /** Ticks in the rolling load window. */
+    private static final int WINDOW = 100;
+
+    private volatile boolean stagger;
+    /** Bumped when scheduling settings change, to rebuild every wheel. */
+    private volatile int generation;
+
+    /** Next phase to hand out, per interval; guarded by this. */
+    private int[] phaseCursor = new int[16];
+
+    // ── Load meter ──
+    private final long[] window = new long[WINDOW];
+    private int windowPos;
+    private int windowFill;
+    private long windowSum;
+    private double windowSumSq;
+    private final AtomicLong tickLoad = new AtomicLong();
+
+    public EmitterScheduler(boolean stagger) {
+        setStagger(stagger);
+    }
+
+    public void setStagger(boolean stagger) {
+        if (this.stagger != stagger) resetWindow();
+        this.stagger = stagger;
+        generation++;
+    }
+
+    public boolean isStagger() {
+        return stagger;
+    }
+
+    /**
+     * Collect the indexes of a session's emitters due at its tick {@code pt},
+     * (re)building its wheel if the trail or settings changed.
+     *
+     * @param stretch current interval stretch from the {@link ParticleBudget}
+     * @param out     receives the due emitter indexes; at least as long as the trail's emitter list
+     * @return how many emitters are due
+     */
+    int collectDue(PlayerSession session, Trail trail, int pt, int stretch, int[] out) {
+        EmitterWheel wheel = session.wheel;
+        if (wheel.trail != trail || wheel.generation != generation) {
+            wheel.build(trail, generation, pt, assignPhases(trail, pt), ParticleBudget.MAX_INTERVAL_STRETCH);
+        }
+
+        int due = wheel.collectDue(pt, stretch, out);
+        List<Emitter> emitters = trail.getEmitters();
+        long load = 0;
+        for (int i = 0; i < due; i++) {
+            Emitter emitter = emitters.get(out[i]);
+            load += (long) emitter.getParticlesPerAnchor() * emitter.getAnchorCount();
+        }
+        if (load > 0) tickLoad.addAndGet(load);
+        return due;
+    }
+
+    private synchronized int[] assignPhases(Trail trail, int pt) {
+        List<Emitter> emitters = trail.getEmitters();
+        int n = emitters.size();
+        int[] phases = new int[n];
+
+        for (int e = 0; e < n; e++) {
+            int interval = emitters.get(e).getInterval();
+            if (stagger) {
+                if (interval >= phaseCursor.length) {
+                    phaseCursor = Arrays.copyOf(phaseCursor, Math.max(interval + 1, phaseCursor.length * 2));
+                }
+                phases[e] = phaseCursor[interval];
+                phaseCursor[interval] = (phaseCursor[interval] + 1) % interval;
+            } else {
+                // Align with pt % interval == 0
+                phases[e] = Math.floorMod(-pt, interval);
+            }
+        }
+        return phases;
+    }
+
+    /**
+     * Close the current tick's load sample.
+     */
+    public synchronized void endTick() {
+        long load = tickLoad.getAndSet(0);
+        if (windowFill == WINDOW) {
+            long old = window[windowPos];
+            windowSum -= old;
+            windowSumSq -= (double) old * old;
+        } else {
+            windowFill++;
+        }
+        window[windowPos] = load;
+        windowSum += load;
+        windowSumSq += (double) load * load;
+        windowPos = (windowPos + 1) % WINDOW;
+    }
+
+    private synchronized void resetWindow() {
+        windowPos = 0;
+        windowFill = 0;
+        windowSum = 0;
+        windowSumSq = 0;
+        tickLoad.set(0);
+    }
+
+    // ── Getters ─────────────────────────────────────────────
+
+    /** @return mean emitter load per tick over the window, in nominal particles */
+    public synchronized double getLoadMean() {
+        return windowFill > 0 ? (double) windowSum / windowFill : 0;
+    }
+
+    /** @return variance of the per-tick emitter load over the window */
+    public synchronized double getLoadVariance() {
+        if (windowFill == 0) return 0;
+        double mean = getLoadMean();
+        return Math.max(0, windowSumSq / windowFill - mean * mean);
+    }
+
+    /** @return largest per-tick emitter load in the window */
+    public synchronized long getLoadPeak() {
+        long peak = 0;
+        for (int i = 0; i < windowFill; i++) peak = Math.max(peak, window[i]);
+        return peak;
+    }
+}
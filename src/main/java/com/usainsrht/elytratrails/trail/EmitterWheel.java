@@ -0,0 +1,90 @@
+package com.usainsrht.elytratrails.trail;
+
+import com.usainsrht.elytratrails.model.Emitter;
+import com.usainsrht.elytratrails.model.Trail;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-session timing wheel of a trail's emitters.
+ *
+ * <p>Each emitter sits in the bucket of the tick it is next due; a tick only
+ * walks its own bucket, so emitters that are not due are never visited.
+ * Buckets are intrusive linked lists over emitter indexes ({@code head} /
+ * {@code next}), so rescheduling never allocates. The wheel is larger than
+ * the longest (stretched) interval, so an emitter is always rescheduled into
+ * a different bucket and fires exactly on its due tick.
+ */
+final class EmitterWheel {
+
+    /** Trail the wheel was built for; null = not built. */
+    Trail trail;
+    /** Scheduler generation the wheel was built under. */
+    int generation;
+
+    private int mask;
+    private int[] head = new int[0];
+    private int[] next = new int[0];
+
+    /**
+     * Place every emitter of a trail on the wheel.
+     *
+     * @param pt     the session tick about to be processed
+     * @param phases phase offset per emitter, each in {@code [0, interval)}
+     */
+    void build(Trail trail, int generation, int pt, int[] phases, int maxStretch) {
+        List<Emitter> emitters = trail.getEmitters();
+        int n = emitters.size();
+
+        int longest = 1;
+        for (int e = 0; e < n; e++) {
+            longest = Math.max(longest, emitters.get(e).getInterval());
+        }
+        int size = Integer.highestOneBit(longest * maxStretch) << 1;
+
+        if (head.length != size) head = new int[size];
+        if (next.length < n) next = new int[n];
+        Arrays.fill(head, -1);
+        mask = size - 1;
+
+        for (int e = 0; e < n; e++) {
+            add(pt + phases[e], e);
+        }
+        this.trail = trail;
+        this.generation = generation;
+    }
+
+    /**
+     * Take the emitters due at {@code pt} off the wheel and reschedule each
+     * one interval (times {@code stretch}) later.
+     *
+     * @param out receives the due emitter indexes
+     * @return how many emitters are due
+     */
+    int collectDue(int pt, int stretch, int[] out) {
+        List<Emitter> emitters = trail.getEmitters();
+        int bucket = pt & mask;
+        int e = head[bucket];
+        head[bucket] = -1;
+
+        int count = 0;
+        while (e >= 0) {
+            int following = next[e];
+            out[count++] = e;
+            add(pt + emitters.get(e).getInterval() * stretch, e);
+            e = following;
+        }
+        return count;
+    }
+
+    void clear() {
+        trail = null;
+    }
+
+    private void add(int due, int emitter) {
+        int bucket = due & mask;
+        next[emitter] = head[bucket];
+        head[bucket] = emitter;
+    }
+}
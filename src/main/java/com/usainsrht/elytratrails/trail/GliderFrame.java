@@ -0,0 +1,32 @@
+package com.usainsrht.elytratrails.trail;
+
+import com.usainsrht.elytratrails.model.Trail;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Immutable snapshot of one glider for one tick, taken on the main thread
+ * and rendered by a {@link RenderPipeline} worker into a
+ * {@link ParticleBatch}, which the owning thread sends on the next tick.
+ *
+ * <p>Holds everything the geometry stage needs so workers never read live
+ * player or plugin state: the pose, the trail, which emitters are due and
+ * who receives them in each LOD band.
+ *
+ * @param source    the glider, passed through to the particle packets
+ * @param pt        the glider's tick, drives animations
+ * @param due       indexes of the trail's emitters that fire this tick
+ * @param bands     LOD bands, parallel to {@code receivers}
+ * @param receivers copied receiver list per band (empty = band not rendered)
+ * @param scale     detail multiplier from the budget and the player's quota
+ * @param force     deliver beyond the client's default particle range
+ */
+public record GliderFrame(Player source, World world,
+                          double x, double y, double z,
+                          float yaw, float pitch, double roll,
+                          int pt, Trail trail, int[] due,
+                          LodBand[] bands, List<List<Player>> receivers,
+                          double scale, boolean force) {
+}
@@ -0,0 +1,60 @@
+package com.usainsrht.elytratrails.trail;
+
+import java.util.Arrays;
+
+/**
+ * The set of players that are currently gliding with an elytra and have a
+ * trail selected. Maintained from glide, armour, join/quit and world-change
+ * events so the particle task only ever visits active gliders.
+ *
+ * <p>A dense array of sessions with swap-remove; each session remembers its
+ * own position, so add, remove and iteration by index are O(1) and never
+ * hash or allocate.
+ */
+public class GliderIndex {
+
+    private PlayerSession[] sessions = new PlayerSession[16];
+    private int size;
+
+    /**
+     * @return true if the session was not indexed before
+     */
+    public boolean add(PlayerSession session) {
+        if (session.gliderPos >= 0) return false;
+        if (size == sessions.length) {
+            sessions = Arrays.copyOf(sessions, sessions.length * 2);
+        }
+        session.gliderPos = size;
+        sessions[size++] = session;
+        return true;
+    }
+
+    /**
+     * @return true if the session was indexed
+     */
+    public boolean remove(PlayerSession session) {
+        int pos = session.gliderPos;
+        if (pos < 0) return false;
+
+        PlayerSession moved = sessions[--size];
+        sessions[size] = null;
+        if (pos != size) {
+            sessions[pos] = moved;
+            moved.gliderPos = pos;
+        }
+        session.gliderPos = -1;
+        return true;
+    }
+
+    public PlayerSession get(int index) {
+        return sessions[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.usainsrht.elytratrails.trail;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One level-of-detail band: viewers up to {@code distance} blocks from a
+ * glider see its trail at {@code detail} density.
+ *
+ * <p>{@code detail} scales particle amounts, spiral/butterfly points and
+ * wing-coverage steps (1.0 = full, 0.5 = roughly half). With
+ * {@code skipShapes} the band only receives shapeless emitters.
+ *
+ * @param distance   outer edge of the band in blocks
+ * @param detail     density multiplier in (0, 1]
+ * @param skipShapes skip spiral, butterfly and wave emitters entirely
+ */
+public record LodBand(double distance, double detail, boolean skipShapes) {
+
+    /** Full detail for every viewer. */
+    public static LodBand full(double distance) {
+        return new LodBand(distance, 1.0, false);
+    }
+
+    /**
+     * Parse the {@code render.lod} section of config.yml. Bands are sorted
+     * by distance; viewers beyond the last band (but within view distance)
+     * use the last band. A missing or disabled section yields a single
+     * full-detail band.
+     */
+    public static List<LodBand> fromConfig(ConfigurationSection lod, double viewDistance) {
+        List<LodBand> bands = new ArrayList<>();
+        if (lod != null && lod.getBoolean("enabled", true)) {
+            for (Map<?, ?> map : lod.getMapList("bands")) {
+                double distance = toDouble(map.get("distance"), viewDistance);
+                double detail = Math.max(0.01, Math.min(1.0, toDouble(map.get("detail"), 1.0)));
+                boolean skipShapes = Boolean.TRUE.equals(map.get("skip-shapes"));
+                bands.add(new LodBand(distance, detail, skipShapes));
+            }
+        }
+        if (bands.isEmpty()) {
+            bands.add(full(viewDistance));
+        }
+        bands.sort(Comparator.comparingDouble(LodBand::distance));
+        return bands;
+    }
+
+    private static double toDouble(Object value, double def) {
+        return value instanceof Number n ? n.doubleValue() : def;
+    }
+}
@@ -0,0 +1,90 @@
+package com.usainsrht.elytratrails.trail;
+
+import org.bukkit.Particle;
+
+import java.util.Arrays;
+
+/**
+ * Particles computed by a {@link RenderPipeline} worker for one
+ * {@link GliderFrame}, held until the thread that owns the glider sends
+ * them. Workers only do geometry; every {@code World#spawnParticle} call
+ * (which reads the glider's and receivers' live state) happens on the
+ * owning thread.
+ *
+ * <p>Entries are kept in parallel primitive arrays that grow as needed and
+ * are reused: each {@link PlayerSession} recycles its batches, so steady
+ * state allocates nothing. A batch is handed between threads through the
+ * session's atomic references and is only ever used by one thread at a time.
+ */
+final class ParticleBatch {
+
+    /** Doubles per entry: x, y, z, offset x/y/z, extra. */
+    private static final int STRIDE = 7;
+
+    private GliderFrame frame;
+    private int size;
+    private Particle[] particles = new Particle[64];
+    private Object[] data = new Object[64];
+    private int[] bands = new int[64];
+    private int[] counts = new int[64];
+    private double[] values = new double[64 * STRIDE];
+
+    /**
+     * Start filling the batch for a frame.
+     */
+    void reset(GliderFrame frame) {
+        clear();
+        this.frame = frame;
+    }
+
+    void add(int band, Particle particle, double x, double y, double z, int count,
+             double offsetX, double offsetY, double offsetZ, double extra, Object extraData) {
+        if (size == particles.length) grow();
+        particles[size] = particle;
+        data[size] = extraData;
+        bands[size] = band;
+        counts[size] = count;
+        int v = size * STRIDE;
+        values[v] = x;
+        values[v + 1] = y;
+        values[v + 2] = z;
+        values[v + 3] = offsetX;
+        values[v + 4] = offsetY;
+        values[v + 5] = offsetZ;
+        values[v + 6] = extra;
+        size++;
+    }
+
+    /**
+     * Send every entry to its band's receivers. Call on the glider's
+     * owning thread.
+     */
+    void send() {
+        if (frame == null) return;
+        for (int i = 0; i < size; i++) {
+            int v = i * STRIDE;
+            frame.world().spawnParticle(particles[i], frame.receivers().get(bands[i]), frame.source(),
+                    values[v], values[v + 1], values[v + 2], counts[i],
+                    values[v + 3], values[v + 4], values[v + 5], values[v + 6], data[i], frame.force());
+        }
+    }
+
+    /**
+     * Empty the batch, dropping its references to the frame and particle data.
+     */
+    void clear() {
+        Arrays.fill(particles, 0, size, null);
+        Arrays.fill(data, 0, size, null);
+        size = 0;
+        frame = null;
+    }
+
+    private void grow() {
+        int capacity = particles.length * 2;
+        particles = Arrays.copyOf(particles, capacity);
+        data = Arrays.copyOf(data, capacity);
+        bands = Arrays.copyOf(bands, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        values = Arrays.copyOf(values, capacity * STRIDE);
+    }
+}
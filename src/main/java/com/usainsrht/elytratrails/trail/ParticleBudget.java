@@ -0,0 +1,136 @@
+package com.usainsrht.elytratrails.trail;
+
+import com.usainsrht.elytratrails.model.Emitter;
+import org.bukkit.Server;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Global per-tick particle budget driven by server health.
+ *
+ * <p>A feedback controller compares the server's average tick time with
+ * {@code budget.target-mspt} and adjusts an emission scale in
+ * {@code [min-scale, 1]}: it backs off multiplicatively while the server is
+ * over target and recovers additively once it is back under, so throttling
+ * kicks in fast and lifts smoothly. The scale drives, in order of severity:
+ * <ul>
+ *   <li>amount reduction – every emitter's detail is multiplied by the scale;</li>
+ *   <li>interval stretching – at 50% / 75% shed, emitter intervals are doubled / tripled
+ *       (applied by the {@link EmitterScheduler});</li>
+ *   <li>emitter shedding – emitters whose {@code priority} is below
+ *       {@code shed * 10} are skipped;</li>
+ *   <li>a hard cap of {@code max-particles-per-tick * scale} particles.</li>
+ * </ul>
+ *
+ * <p>The controller runs on a single thread; the throttle it publishes and
+ * the skip counter may be read and updated from any thread.
+ */
+public class ParticleBudget {
+
+    /** Ticks between controller updates (the server average moves slowly). */
+    private static final int UPDATE_INTERVAL = 20;
+
+    /** Largest factor intervals are ever stretched by. */
+    public static final int MAX_INTERVAL_STRETCH = 3;
+
+    private boolean enabled;
+    private double targetMspt;
+    private int maxParticles;
+    private double minScale;
+    private double recoveryPerUpdate;
+
+    /** Current emission scale; 1 = unthrottled. */
+    private volatile double scale = 1.0;
+    private volatile double lastMspt;
+
+    // ── derived per update ──
+    private volatile int tickBudget;
+    private volatile int intervalStretch = 1;
+    private volatile int shedPriority;
+
+    // ── per-tick stats (of the last completed tick) ──
+    private volatile int lastSpawned;
+    private volatile int lastSkipped;
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    public ParticleBudget(ConfigurationSection sec) {
+        reload(sec);
+    }
+
+    /**
+     * Re-read the {@code budget} section of config.yml.
+     */
+    public void reload(ConfigurationSection sec) {
+        enabled = sec != null && sec.getBoolean("enabled", true);
+        targetMspt = sec != null ? sec.getDouble("target-mspt", 45.0) : 45.0;
+        maxParticles = sec != null ? sec.getInt("max-particles-per-tick", 20000) : 20000;
+        minScale = Math.max(0.01, Math.min(1.0, sec != null ? sec.getDouble("min-scale", 0.1) : 0.1));
+        recoveryPerUpdate = Math.max(0.001, sec != null ? sec.getDouble("recovery-per-second", 0.05) : 0.05);
+        if (!enabled) scale = 1.0;
+        derive();
+    }
+
+    /**
+     * Start a new tick: record last tick's usage and, periodically, feed the
+     * server's tick time into the controller.
+     *
+     * @param spawned particles spawned during the previous tick
+     */
+    public void beginTick(Server server, int tick, int spawned) {
+        lastSpawned = spawned;
+        lastSkipped = skipped.getAndSet(0);
+
+        if (!enabled || tick % UPDATE_INTERVAL != 0) return;
+
+        lastMspt = server.getAverageTickTime();
+        if (lastMspt > targetMspt) {
+            // Back off proportionally to how far over target we are (at most halve)
+            double over = Math.min(0.5, (lastMspt - targetMspt) / targetMspt);
+            scale = Math.max(minScale, scale * (1.0 - over));
+        } else {
+            scale = Math.min(1.0, scale + recoveryPerUpdate);
+        }
+        derive();
+    }
+
+    private void derive() {
+        double shed = 1.0 - scale;
+        tickBudget = enabled ? (int) Math.max(1, maxParticles * scale) : Integer.MAX_VALUE;
+        intervalStretch = shed >= 0.75 ? MAX_INTERVAL_STRETCH : shed >= 0.5 ? 2 : 1;
+        shedPriority = (int) (shed * 10);
+    }
+
+    /**
+     * Whether a due emitter survives priority shedding.
+     */
+    public boolean shouldEmit(Emitter emitter) {
+        if (emitter.getPriority() < shedPriority) {
+            skipped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Count emission dropped outside {@link #shouldEmit}, e.g. cut short by
+     * the particle cap.
+     */
+    public void addSkipped(int count) {
+        skipped.addAndGet(count);
+    }
+
+    // ── Getters ─────────────────────────────────────────────
+
+    public boolean isEnabled() { return enabled; }
+    public double getScale() { return scale; }
+    /** @return fraction of emission currently shed, 0 = none */
+    public double getShedRatio() { return 1.0 - scale; }
+    public double getTargetMspt() { return targetMspt; }
+    public double getLastMspt() { return lastMspt; }
+    public int getTickBudget() { return tickBudget; }
+    public int getIntervalStretch() { return intervalStretch; }
+    public int getShedPriority() { return shedPriority; }
+    public int getLastSpawned() { return lastSpawned; }
+    public int getLastSkipped() { return lastSkipped; }
+}
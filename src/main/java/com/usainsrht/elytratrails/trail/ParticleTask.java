@@ -4,372 +4,604 @@ import com.usainsrht.elytratrails.ElytraTrails;
 import com.usainsrht.elytratrails.config.PlayerDataManager;
 import com.usainsrht.elytratrails.config.TrailManager;
 import com.usainsrht.elytratrails.model.Emitter;
-import com.usainsrht.elytratrails.model.SpawnPoint;
 import com.usainsrht.elytratrails.model.Trail;
-import org.bukkit.Color;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.Particle;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.util.Vector;
+import org.bukkit.scheduler.BukkitTask;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Synchronous ticker that runs every tick and drives all emitters for every
- * gliding player. Each emitter has its own interval so different parts of a
- * trail can tick at different rates.
+ * Ticker that runs every tick and drives all emitters for every gliding
+ * player. Each emitter has its own interval so different parts of a
+ * trail can tick at different rates; the {@link EmitterScheduler} staggers
+ * their phases across players and only visits emitters that are due.
  *
  * <p>Wing-tip positions are calculated from the player's yaw and an estimated
  * body-roll derived from lateral velocity, giving a realistic elytra look.
+ * The geometry stage works on primitives and reusable scratch state
+ * ({@link EmitterContext}, a scratch {@link Location} and each player's
+ * {@link PlayerSession}) so a steady-state tick allocates nothing for it.
+ *
+ * <p>Particles are only sent to players within {@code render.view-distance}
+ * of the glider. Nearby players are resolved once per glider per tick through
+ * a {@link ViewerIndex} instead of letting the server scan the whole world for
+ * every spawn call.
+ *
+ * <p>Viewers are further split into level-of-detail bands
+ * ({@code render.lod}); each band is rendered separately with its own
+ * density, so far-away viewers receive fewer particles while the glider's own
+ * client sees the full trail.
+ *
+ * <p>All emission is throttled by a global {@link ParticleBudget} that
+ * follows server tick times. Each tick first collects the gliders and their
+ * trails' compiled cost, then splits the budget between them with a
+ * {@link PlayerQuota} before rendering, so one pathological trail cannot
+ * crowd out everyone else.
+ *
+ * <p>Only players in the {@link GliderIndex} are visited. The index is kept
+ * up to date by {@link com.usainsrht.elytratrails.listener.GlideListener}
+ * through {@link #refresh(Player, boolean)}; the task cancels itself while
+ * nobody is gliding and is restarted by the next glide start.
+ *
+ * <p>With {@code render.async.enabled} the main thread stops after the cheap
+ * part (position, roll, due emitters, receivers): it freezes each glider
+ * into a {@link GliderFrame} and a {@link RenderPipeline} worker does the
+ * geometry, without the next tick waiting for it. The particles it computed
+ * are sent from here on the glider's next tick, since spawning them reads
+ * live player state.
+ *
+ * <p>On region-threaded servers (Folia) the task runs in region mode: each
+ * glider is rendered by a repeating task on its own entity scheduler, and a
+ * global-region task only drives the budget controller. Viewers come from
+ * the glider's region ({@code getNearbyPlayers}) instead of the shared
+ * {@link ViewerIndex}, scratch buffers are per thread, and the cross-player
+ * {@link PlayerQuota} water-fill is replaced by the plain per-player cap,
+ * since gliders in different regions are never rendered together.
  */
-public class ParticleTask extends BukkitRunnable {
+public class ParticleTask implements Runnable {
 
-    /* ── Wing geometry constants (blocks, relative to player centre) ── */
-    private static final double WING_LENGTH     = 1.6;   // full wingspan from centre
-    private static final double WING_BACK       = -0.3;  // how far behind the body
-    private static final double WING_UP         = 0.15;  // slight upward tilt
-    private static final double FEET_DOWN       = -0.8;  // feet below centre
-    private static final double BEHIND_DIST     = 1.0;   // "behind" distance
+    /** Beyond this distance clients drop particles unless they are forced. */
+    private static final double DEFAULT_PARTICLE_RANGE = 32.0;
 
     private final ElytraTrails plugin;
-    private final TrailManager trailManager;
     private final PlayerDataManager playerData;
 
+    /** Render each glider on its entity scheduler (Folia) instead of one global ticker. */
+    private final boolean regionMode;
+
     /** Global tick counter – increments every server tick. */
-    private int tick = 0;
+    private volatile int tick = 0;
 
-    /** Per-player tick counters (reset when they stop gliding). */
-    private final Map<UUID, Integer> playerTicks = new HashMap<>();
+    /** Per-player renderer state, one dense slot per online player. */
+    private final PlayerSessions sessions = new PlayerSessions();
 
-    /** Per-player previous location for roll estimation. */
-    private final Map<UUID, Location> prevLocations = new HashMap<>();
+    /** Scratch buffers of the global ticker. */
+    private final RenderScratch scratch = new RenderScratch();
 
-    public ParticleTask(ElytraTrails plugin, TrailManager trailManager,
-                        PlayerDataManager playerData) {
-        this.plugin = plugin;
-        this.trailManager = trailManager;
-        this.playerData = playerData;
-    }
+    /** Region mode: scratch buffers per region thread. */
+    private final ThreadLocal<RenderScratch> regionScratch = ThreadLocal.withInitial(RenderScratch::new);
 
-    /* ================================================================== */
+    /** Particles spawned synchronously since the tick started. */
+    private final AtomicInteger tickSpawned = new AtomicInteger();
 
-    @Override
-    public void run() {
-        tick++;
+    /** Online players bucketed by position, rebuilt every tick (global mode). */
+    private final ViewerIndex viewers;
 
-        for (Player player : plugin.getServer().getOnlinePlayers()) {
-            UUID uuid = player.getUniqueId();
+    /** MSPT-driven global throttle. */
+    private final ParticleBudget budget;
 
-            if (!isGlidingWithElytra(player)) {
-                playerTicks.remove(uuid);
-                prevLocations.remove(uuid);
-                continue;
-            }
+    /** Per-player share of the budget. */
+    private final PlayerQuota quota;
 
-            String trailId = playerData.getActiveTrail(uuid);
-            if (trailId == null) continue;
+    /** Players currently gliding with an elytra and a trail selected. */
+    private final GliderIndex gliderIndex = new GliderIndex();
 
-            Trail trail = trailManager.getTrail(trailId);
-            if (trail == null) continue;
+    /** Resolved active trail and permission verdict per player. */
+    private final TrailEntitlements entitlements;
 
-            if (!player.hasPermission("elytratrails.trail.*")
-                    && !player.hasPermission(trail.getPermission())) {
-                continue;
-            }
+    /** Phase-staggered emitter timing. */
+    private final EmitterScheduler scheduler;
 
-            int pt = playerTicks.merge(uuid, 1, Integer::sum);
+    /** Off-thread geometry and delivery; null = render synchronously. */
+    private volatile RenderPipeline pipeline;
 
-            // ── Compute body vectors ─────────────────────────
-            Location loc = player.getLocation();
-            double yawRad = Math.toRadians(loc.getYaw());
-            double pitchRad = Math.toRadians(loc.getPitch());
+    /** Running timer, or null while suspended. */
+    private BukkitTask task;
 
-            Vector forward = loc.getDirection().normalize();
+    /** Region mode: budget controller on the global region scheduler, or null while suspended. */
+    private ScheduledTask globalTask;
 
-            // "right" in the horizontal plane (perpendicular to yaw)
-            Vector right = new Vector(-Math.cos(yawRad), 0, -Math.sin(yawRad)).normalize();
+    /** Region mode: players with a running entity task. */
+    private final AtomicInteger regionGliders = new AtomicInteger();
 
-            // Estimate roll from lateral velocity
-            double roll = estimateRoll(player, right);
+    // ── Reusable per-tick glider buffers (parallel arrays) ──
+    private PlayerSession[] gliders = new PlayerSession[16];
+    private int[] gliderDemand = new int[16];
+    private int[] gliderAllowance = new int[16];
+    private int gliderCount;
 
-            // Rotated up considering roll
-            Vector up = new Vector(0, 1, 0);
-            Vector rolledRight = right.clone().multiply(Math.cos(roll)).add(up.clone().multiply(Math.sin(roll)));
-            Vector rolledUp    = up.clone().multiply(Math.cos(roll)).subtract(right.clone().multiply(Math.sin(roll)));
-
-            // ── Compute anchor positions ─────────────────────
-            Vector leftWingTip  = rolledRight.clone().multiply(-WING_LENGTH)
-                    .add(forward.clone().multiply(WING_BACK))
-                    .add(rolledUp.clone().multiply(WING_UP));
-            Vector rightWingTip = rolledRight.clone().multiply(WING_LENGTH)
-                    .add(forward.clone().multiply(WING_BACK))
-                    .add(rolledUp.clone().multiply(WING_UP));
-            Vector feet   = new Vector(0, FEET_DOWN, 0);
-            Vector behind = forward.clone().multiply(-BEHIND_DIST);
-            Vector body   = new Vector(0, 0, 0);
+    /**
+     * LOD bands with their squared limits, swapped as one on reload.
+     */
+    private record Lod(LodBand[] bands, double[] limitsSq, double radius, boolean force) {
+    }
 
-            prevLocations.put(uuid, loc.clone());
+    private volatile Lod lod;
 
-            // ── Tick each emitter ────────────────────────────
-            for (Emitter emitter : trail.getEmitters()) {
-                if (pt % emitter.getInterval() != 0) continue;
+    /**
+     * @param regionMode render per player on entity schedulers (see class docs)
+     */
+    public ParticleTask(ElytraTrails plugin, TrailManager trailManager,
+                        PlayerDataManager playerData, boolean regionMode) {
+        this.plugin = plugin;
+        this.playerData = playerData;
+        this.regionMode = regionMode;
+        this.viewers = new ViewerIndex(DEFAULT_PARTICLE_RANGE);
+        this.budget = new ParticleBudget(plugin.getConfig().getConfigurationSection("budget"));
+        this.quota = new PlayerQuota(plugin.getConfig().getInt("budget.per-player-quota", 600));
+        this.scheduler = new EmitterScheduler(plugin.getConfig().getBoolean("render.stagger", true));
+        this.entitlements = new TrailEntitlements(trailManager, playerData,
+                plugin.getConfig().getInt("render.permission-recheck-ticks", 200));
+        reloadSettings();
+    }
 
-                // Resolve spawn points (WINGS expands to LEFT_WING + RIGHT_WING)
-                List<Vector> anchors = resolveAnchors(emitter, leftWingTip, rightWingTip, feet, body, behind, rolledRight, rolledUp, forward);
+    /**
+     * Re-read the {@code render} section of config.yml.
+     */
+    public void reloadSettings() {
+        double viewDistance = plugin.getConfig().getDouble("render.view-distance", DEFAULT_PARTICLE_RANGE);
+        if (!regionMode) viewers.setRadius(viewDistance);
+        double radius = Math.max(1, viewDistance);
+
+        LodBand[] bands = LodBand.fromConfig(
+                plugin.getConfig().getConfigurationSection("render.lod"), radius).toArray(new LodBand[0]);
+        double[] limitsSq = new double[bands.length];
+        for (int b = 0; b < bands.length; b++) {
+            limitsSq[b] = bands[b].distance() * bands[b].distance();
+        }
+        lod = new Lod(bands, limitsSq, radius, radius > DEFAULT_PARTICLE_RANGE);
+
+        budget.reload(plugin.getConfig().getConfigurationSection("budget"));
+        quota.setPerPlayerQuota(plugin.getConfig().getInt("budget.per-player-quota", 600));
+        entitlements.setRecheckTicks(plugin.getConfig().getInt("render.permission-recheck-ticks", 200));
+        entitlements.invalidateAll();
+        scheduler.setStagger(plugin.getConfig().getBoolean("render.stagger", true));
+
+        boolean async = plugin.getConfig().getBoolean("render.async.enabled", true);
+        int threads = plugin.getConfig().getInt("render.async.threads", 0);
+        if (pipeline != null && (!async || threads > 0 && pipeline.getThreads() != threads)) {
+            pipeline.shutdown();
+            pipeline = null;
+        }
+        if (async && pipeline == null) {
+            pipeline = new RenderPipeline(threads, plugin.getLogger());
+        }
+    }
 
-                for (Vector anchor : anchors) {
-                    spawnEmitter(player, loc, anchor, emitter, pt, forward, rolledRight, rolledUp);
-                }
+    /**
+     * Schedule the task to run every tick, unless it is already running.
+     * In region mode this is the global budget controller.
+     */
+    public synchronized void start() {
+        if (regionMode) {
+            if (globalTask == null) {
+                globalTask = plugin.getServer().getGlobalRegionScheduler()
+                        .runAtFixedRate(plugin, t -> tickController(), 1L, 1L);
             }
+        } else if (task == null) {
+            task = plugin.getServer().getScheduler().runTaskTimer(plugin, this, 0L, 1L);
         }
     }
 
-    /* ================================================================== */
-    /*  Anchor resolution                                                 */
-    /* ================================================================== */
+    /**
+     * Cancel the timer. {@link #start()} resumes it.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (globalTask != null) {
+            globalTask.cancel();
+            globalTask = null;
+        }
+    }
 
-    private List<Vector> resolveAnchors(Emitter emitter,
-                                        Vector leftWingTip, Vector rightWingTip,
-                                        Vector feet, Vector body, Vector behind,
-                                        Vector rolledRight, Vector rolledUp, Vector forward) {
-        double coverage = emitter.getWingCoverage();
-        SpawnPoint sp = emitter.getSpawnPoint();
-
-        return switch (sp) {
-            case LEFT_WING  -> wingPoints(leftWingTip, rolledRight, forward, coverage, true);
-            case RIGHT_WING -> wingPoints(rightWingTip, rolledRight, forward, coverage, false);
-            case WINGS -> {
-                List<Vector> pts = new java.util.ArrayList<>(wingPoints(leftWingTip, rolledRight, forward, coverage, true));
-                pts.addAll(wingPoints(rightWingTip, rolledRight, forward, coverage, false));
-                yield pts;
+    /**
+     * Stop the task, every per-player task and the render workers for good
+     * (plugin disable).
+     */
+    public void shutdown() {
+        stop();
+        if (regionMode) {
+            for (int slot = 0, n = sessions.capacity(); slot < n; slot++) {
+                PlayerSession session = sessions.get(slot);
+                if (session != null) untrack(session);
             }
-            case FEET   -> List.of(feet);
-            case BODY   -> List.of(body);
-            case BEHIND -> List.of(behind);
-        };
+        }
+        if (pipeline != null) {
+            pipeline.shutdown();
+            pipeline = null;
+        }
+    }
+
+    public boolean isRegionMode() {
+        return regionMode;
     }
 
     /**
-     * Returns points along a wing. coverage 0 = tip only; 1 = full wing.
+     * @return number of players currently rendered as gliders
      */
-    private List<Vector> wingPoints(Vector tip, Vector right, Vector forward,
-                                    double coverage, boolean isLeft) {
-        if (coverage <= 0.0) return List.of(tip);
-
-        int steps = Math.max(1, (int) (coverage * 6)); // up to 6 points along the wing
-        List<Vector> points = new java.util.ArrayList<>();
-        for (int i = 0; i <= steps; i++) {
-            double t = (double) i / steps; // 0 = body, 1 = tip
-            Vector pt = tip.clone().multiply(t); // linearly interpolate from centre to tip
-            points.add(pt);
-        }
-        return points;
+    public int getGliderCount() {
+        return regionMode ? regionGliders.get() : gliderIndex.size();
     }
 
-    /* ================================================================== */
-    /*  Emitter particle spawning                                         */
-    /* ================================================================== */
+    /**
+     * @return the render pipeline, or null when rendering synchronously
+     */
+    public RenderPipeline getPipeline() {
+        return pipeline;
+    }
 
-    private void spawnEmitter(Player player, Location origin, Vector anchor,
-                              Emitter emitter, int pt,
-                              Vector forward, Vector right, Vector up) {
+    public synchronized boolean isRunning() {
+        return task != null || globalTask != null;
+    }
 
-        String shape = emitter.getShape();
-        switch (shape) {
-            case "spiral"    -> spawnSpiral(player, origin, anchor, emitter, pt, forward, right, up);
-            case "butterfly" -> spawnButterfly(player, origin, anchor, emitter, pt, right, up, forward);
-            case "wave"      -> spawnWave(player, origin, anchor, emitter, pt, right, up, forward);
-            default          -> spawnSimple(player, origin, anchor, emitter, pt);
-        }
+    /**
+     * Give a joining player their session slot and index them if they are
+     * already gliding.
+     */
+    public void open(Player player) {
+        sessions.open(player);
+        refresh(player);
     }
 
-    /* ── Simple (static / animated colour cycling) ────────────────────── */
+    /**
+     * Release a quitting player's session slot.
+     */
+    public void close(UUID uuid) {
+        PlayerSession session = sessions.close(uuid);
+        if (session != null) untrack(session);
+    }
 
-    private void spawnSimple(Player player, Location origin, Vector anchor,
-                             Emitter emitter, int pt) {
-        Location spawnLoc = origin.clone().add(anchor);
-        Color color = resolveColor(emitter, pt);
+    /**
+     * Re-evaluate whether a player belongs in the glider index, starting the
+     * task if they are the first glider.
+     */
+    public void refresh(Player player) {
+        refresh(player, player.isGliding());
+    }
 
-        if (emitter.getParticle() == Particle.DUST && color != null) {
-            Particle.DustOptions dust = new Particle.DustOptions(color, emitter.getSize());
-            player.getWorld().spawnParticle(Particle.DUST, spawnLoc,
-                    emitter.getAmount(),
-                    emitter.getOffset().getX(), emitter.getOffset().getY(), emitter.getOffset().getZ(),
-                    emitter.getSpeed(), dust);
-        } else {
-            if (emitter.isRandomDirection()) {
-                // Spawn one at a time with random velocity
-                for (int i = 0; i < emitter.getAmount(); i++) {
-                    Vector dir = randomUnitVector().multiply(emitter.getRandomDirectionSpeed());
-                    player.getWorld().spawnParticle(emitter.getParticle(), spawnLoc,
-                            0, dir.getX(), dir.getY(), dir.getZ(), emitter.getRandomDirectionSpeed());
-                }
-            } else if (!emitter.getVelocity().isZero()) {
-                Vector v = emitter.getVelocity();
-                player.getWorld().spawnParticle(emitter.getParticle(), spawnLoc,
-                        0, v.getX(), v.getY(), v.getZ(), 1);
-            } else {
-                player.getWorld().spawnParticle(emitter.getParticle(), spawnLoc,
-                        emitter.getAmount(),
-                        emitter.getOffset().getX(), emitter.getOffset().getY(), emitter.getOffset().getZ(),
-                        emitter.getSpeed());
+    /**
+     * @param gliding the player's gliding state; passed explicitly because
+     *                {@code EntityToggleGlideEvent} fires before it applies
+     */
+    public void refresh(Player player, boolean gliding) {
+        if (!player.isOnline()) return;
+        PlayerSession session = sessions.open(player);
+        entitlements.invalidate(session);
+        if (gliding && hasElytra(player) && playerData.getActiveTrail(session.getUniqueId()) != null) {
+            if (regionMode) {
+                track(session);
+            } else if (gliderIndex.add(session)) {
+                start();
             }
+        } else {
+            untrack(session);
         }
     }
 
-    /* ── Spiral shape ─────────────────────────────────────────────────── */
-
-    private void spawnSpiral(Player player, Location origin, Vector anchor,
-                             Emitter emitter, int pt,
-                             Vector forward, Vector right, Vector up) {
-        double radius = emitter.getSpiralRadius();
-        if (emitter.isSpiralExpand()) {
-            // Pulsing radius using sine
-            double phase = pt * emitter.getSpiralExpandSpeed();
-            double min = emitter.getSpiralExpandMin();
-            double max = emitter.getSpiralExpandMax();
-            radius = min + (max - min) * (0.5 + 0.5 * Math.sin(phase));
+    /**
+     * Region mode: start rendering a glider on its own entity scheduler.
+     */
+    private void track(PlayerSession session) {
+        synchronized (session) {
+            if (session.regionTask != null) return;
+            session.regionTask = session.player.getScheduler().runAtFixedRate(plugin,
+                    t -> tickPlayer(session), () -> untrack(session), 1L, 1L);
+            if (session.regionTask == null) return;  // entity already removed
         }
+        regionGliders.incrementAndGet();
+        start();
+    }
 
-        for (int i = 0; i < emitter.getSpiralPoints(); i++) {
-            double angle = (pt * emitter.getSpiralPoints() + i) * emitter.getSpiralSpeed();
-            double x = Math.cos(angle) * radius;
-            double y = Math.sin(angle) * radius;
-
-            Vector spiralOff = right.clone().multiply(x).add(up.clone().multiply(y));
-            Location spawnLoc = origin.clone().add(anchor).add(spiralOff);
-
-            Color color = resolveColor(emitter, pt + i);
-            if (emitter.getParticle() == Particle.DUST && color != null) {
-                Particle.DustOptions dust = new Particle.DustOptions(color, emitter.getSize());
-                player.getWorld().spawnParticle(Particle.DUST, spawnLoc,
-                        emitter.getAmount(), 0, 0, 0, 0, dust);
-            } else {
-                player.getWorld().spawnParticle(emitter.getParticle(), spawnLoc,
-                        emitter.getAmount(), 0, 0, 0, emitter.getSpeed());
+    /**
+     * Drop a session from the glider index (or cancel its entity task) and
+     * forget its per-glide state.
+     */
+    private void untrack(PlayerSession session) {
+        if (regionMode) {
+            synchronized (session) {
+                if (session.regionTask == null) return;
+                session.regionTask.cancel();
+                session.regionTask = null;
             }
+            regionGliders.decrementAndGet();
+        } else {
+            gliderIndex.remove(session);
         }
+        entitlements.invalidate(session);
+        session.resetFlight();
     }
 
-    /* ── Butterfly shape ──────────────────────────────────────────────── */
+    /**
+     * Open sessions for everyone online and rebuild the glider index, e.g.
+     * on enable.
+     */
+    public void openAll() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            open(player);
+        }
+    }
 
-    private void spawnButterfly(Player player, Location origin, Vector anchor,
-                                Emitter emitter, int pt,
-                                Vector right, Vector up, Vector forward) {
-        double scale = emitter.getButterflyScale();
-        double flapFactor = 0.7 + 0.3 * Math.sin(pt * emitter.getButterflyFlapSpeed());
-        int points = emitter.getButterflyPoints();
+    public PlayerSessions getSessions() {
+        return sessions;
+    }
 
-        for (int i = 0; i < points; i++) {
-            double t = (double) i / points * Math.PI;
+    public TrailEntitlements getEntitlements() {
+        return entitlements;
+    }
 
-            // Butterfly curve: r = |sin(t)| * (e^cos(t) - 2*cos(4t))
-            double r = Math.abs(Math.sin(t)) * (Math.exp(Math.cos(t)) - 2.0 * Math.cos(4 * t));
-            r *= scale * flapFactor;
+    public GliderIndex getGliderIndex() {
+        return gliderIndex;
+    }
 
-            double yOff = Math.sin(t) * r * 0.5;
+    public EmitterScheduler getScheduler() {
+        return scheduler;
+    }
 
-            // Right wing point
-            Vector rwOff = right.clone().multiply(Math.cos(t) * r)
-                    .add(up.clone().multiply(yOff))
-                    .add(forward.clone().multiply(-0.4));
-            spawnButterflyPoint(player, origin, anchor, rwOff, emitter, pt + i);
+    public ParticleBudget getBudget() {
+        return budget;
+    }
+
+    public PlayerQuota getQuota() {
+        return quota;
+    }
+
+    /* ================================================================== */
 
-            // Left wing point (mirrored)
-            Vector lwOff = right.clone().multiply(-Math.cos(t) * r)
-                    .add(up.clone().multiply(yOff))
-                    .add(forward.clone().multiply(-0.4));
-            spawnButterflyPoint(player, origin, anchor, lwOff, emitter, pt + i);
+    @Override
+    public void run() {
+        beginTick();
+
+        // ── Pass 1: collect gliders and what their trails cost ──
+        // Walk backwards so untracking (swap-remove) never skips an entry.
+        gliderCount = 0;
+        double scale = budget.getScale();
+        for (int g = gliderIndex.size() - 1; g >= 0; g--) {
+            PlayerSession session = gliderIndex.get(g);
+
+            // Safety net for state changes no event reported
+            if (!session.player.isOnline() || !isGlidingWithElytra(session.player)) {
+                untrack(session);
+                continue;
+            }
+
+            Trail trail = entitlements.resolve(session, tick);
+            if (trail == null) continue;
+
+            addGlider(session, (int) Math.ceil(trail.getCost() * scale));
+        }
+        if (gliderIndex.isEmpty()) {
+            stop();
+            return;
+        }
+        if (gliderCount == 0) return;
+
+        viewers.rebuild(plugin.getServer().getOnlinePlayers());
+        Lod lod = this.lod;
+
+        // ── Share the budget fairly ──────────────────────────
+        quota.allocate(gliderDemand, gliderCount, budget.getTickBudget(), tick, gliderAllowance);
+
+        // ── Pass 2: render, starting at a rotating offset ────
+        int start = tick % gliderCount;
+        for (int k = 0; k < gliderCount; k++) {
+            int i = (start + k) % gliderCount;
+            int demand = gliderDemand[i];
+            double playerScale = demand > 0 ? Math.min(1.0, (double) gliderAllowance[i] / demand) : 1.0;
+            renderGlider(gliders[i], scale * playerScale, lod, scratch);
+            gliders[i] = null;
         }
     }
 
-    private void spawnButterflyPoint(Player player, Location origin, Vector anchor,
-                                     Vector shapeOffset, Emitter emitter, int colorIdx) {
-        Location spawnLoc = origin.clone().add(anchor).add(shapeOffset);
-        Color color = resolveColor(emitter, colorIdx);
-        if (emitter.getParticle() == Particle.DUST && color != null) {
-            Particle.DustOptions dust = new Particle.DustOptions(color, emitter.getSize());
-            player.getWorld().spawnParticle(Particle.DUST, spawnLoc,
-                    1, 0, 0, 0, 0, dust);
-        } else {
-            player.getWorld().spawnParticle(emitter.getParticle(), spawnLoc,
-                    1, 0, 0, 0, emitter.getSpeed());
+    /**
+     * Advance the global tick: feed last tick's usage into the budget and
+     * close the scheduler's load sample.
+     */
+    private void beginTick() {
+        tick++;
+        int spawned = tickSpawned.getAndSet(0);
+        RenderPipeline pipeline = this.pipeline;
+        if (pipeline != null) {
+            spawned += pipeline.beginTick(budget.getTickBudget());
+            budget.addSkipped(pipeline.drainSkipped());
         }
+        budget.beginTick(plugin.getServer(), tick, spawned);
+        scheduler.endTick();
     }
 
-    /* ── Wave shape (sine wave along the wing) ────────────────────────── */
+    /**
+     * Region mode: the global-region task. Runs the budget controller and
+     * suspends itself once nobody is gliding.
+     */
+    private void tickController() {
+        beginTick();
+        synchronized (this) {
+            if (regionGliders.get() == 0) stop();
+        }
+    }
 
-    private void spawnWave(Player player, Location origin, Vector anchor,
-                           Emitter emitter, int pt,
-                           Vector right, Vector up, Vector forward) {
-        double y = Math.sin(pt * emitter.getWaveFrequency()) * emitter.getWaveAmplitude();
-        Vector waveOff = up.clone().multiply(y);
-        Location spawnLoc = origin.clone().add(anchor).add(waveOff);
+    /**
+     * Region mode: render one glider on its region thread.
+     */
+    private void tickPlayer(PlayerSession session) {
+        Player player = session.player;
+        if (!isGlidingWithElytra(player)) {
+            untrack(session);
+            return;
+        }
 
-        Color color = resolveColor(emitter, pt);
-        if (emitter.getParticle() == Particle.DUST && color != null) {
-            Particle.DustOptions dust = new Particle.DustOptions(color, emitter.getSize());
-            player.getWorld().spawnParticle(Particle.DUST, spawnLoc,
-                    emitter.getAmount(),
-                    emitter.getOffset().getX(), emitter.getOffset().getY(), emitter.getOffset().getZ(),
-                    emitter.getSpeed(), dust);
-        } else {
-            player.getWorld().spawnParticle(emitter.getParticle(), spawnLoc,
-                    emitter.getAmount(),
-                    emitter.getOffset().getX(), emitter.getOffset().getY(), emitter.getOffset().getZ(),
-                    emitter.getSpeed());
+        Trail trail = entitlements.resolve(session, tick);
+        if (trail == null) return;
+
+        // No cross-region fair share: just cap the glider at its quota
+        double scale = budget.getScale();
+        int demand = (int) Math.ceil(trail.getCost() * scale);
+        int allowance = Math.min(demand, quota.getPerPlayerQuota());
+        double playerScale = demand > 0 ? Math.min(1.0, (double) allowance / demand) : 1.0;
+        renderGlider(session, scale * playerScale, lod, regionScratch.get());
+    }
+
+    private void addGlider(PlayerSession session, int demand) {
+        if (gliderCount == gliders.length) {
+            int size = Math.max(16, gliders.length * 2);
+            gliders = Arrays.copyOf(gliders, size);
+            gliderDemand = Arrays.copyOf(gliderDemand, size);
+            gliderAllowance = Arrays.copyOf(gliderAllowance, size);
         }
+        gliders[gliderCount] = session;
+        gliderDemand[gliderCount] = demand;
+        gliderCount++;
     }
 
-    /* ================================================================== */
-    /*  Helpers                                                           */
-    /* ================================================================== */
+    /**
+     * Render one glider's trail to every LOD band that has receivers.
+     *
+     * @param scale detail multiplier from the global budget and the player's quota
+     */
+    private void renderGlider(PlayerSession session, double scale, Lod lod, RenderScratch scratch) {
+        RenderPipeline.sendRendered(session);
+
+        Player player = session.player;
+        Trail trail = session.trail;
+        int pt = ++session.ticks;
+        LodBand[] bands = lod.bands();
+
+        // ── Compute body basis ───────────────────────────
+        Location loc = player.getLocation(scratch.location);
+        double x = loc.getX();
+        double y = loc.getY();
+        double z = loc.getZ();
+        float yaw = loc.getYaw();
+
+        double roll = estimateRoll(session, x, y, z, yaw);
+        session.yaw = yaw;
+        session.pitch = loc.getPitch();
+        session.roll = roll;
+        session.detailScale = scale;
+        World world = loc.getWorld();
+
+        // ── Which emitters are due (timing wheel), minus shed ones ──
+        List<Emitter> emitters = trail.getEmitters();
+        if (scratch.dueEmitters.length < emitters.size()) scratch.dueEmitters = new int[emitters.size()];
+        int[] dueEmitters = scratch.dueEmitters;
+        int collected = scheduler.collectDue(session, trail, pt, budget.getIntervalStretch(), dueEmitters);
+        int due = 0;
+        for (int i = 0; i < collected; i++) {
+            if (budget.shouldEmit(emitters.get(dueEmitters[i]))) dueEmitters[due++] = dueEmitters[i];
+        }
+        if (due == 0) return;
+
+        // ── Resolve who can see this glider, by LOD band ─
+        if (session.bandViewers.length != bands.length) session.bandViewers = new int[bands.length];
+        List<List<Player>> bandReceivers = scratch.bandReceivers;
+        scratch.ensureBands(bands.length);
+        int found = regionMode
+                ? ViewerIndex.split(world.getNearbyPlayers(loc, lod.radius()), x, y, z,
+                        lod.radius() * lod.radius(), lod.limitsSq(), bandReceivers, scratch.location)
+                : viewers.query(world, x, y, z, lod.limitsSq(), bandReceivers);
+        for (int b = 0; b < bands.length; b++) {
+            session.bandViewers[b] = bandReceivers.get(b).size();
+        }
+        if (found == 0) return;
+
+        RenderPipeline pipeline = this.pipeline;
+        if (pipeline != null) {
+            pipeline.submit(session, snapshot(player, world, x, y, z, yaw, session.pitch, roll,
+                    pt, trail, dueEmitters, due, scale, lod, bandReceivers));
+            return;
+        }
+
+        EmitterContext ctx = scratch.ctx;
+        ctx.update(world, x, y, z, yaw, session.pitch, roll);
+        ctx.resetSpawned();
+        int limit = budget.getTickBudget() - tickSpawned.get();
+        for (int b = 0; b < bands.length; b++) {
+            List<Player> receivers = bandReceivers.get(b);
+            if (receivers.isEmpty()) continue;
+
+            ctx.setReceivers(receivers, player, lod.force());
+            ctx.setDetail(bands[b].detail() * scale);
+            if (!TrailRenderer.renderEmitters(ctx, trail, dueEmitters, due, pt,
+                    bands[b].skipShapes(), limit)) {
+                budget.addSkipped(1);
+                break;
+            }
+        }
+        tickSpawned.addAndGet(ctx.resetSpawned());
+    }
 
     /**
-     * Resolve the current colour from the emitter's colour list (cycling).
-     * Returns null if the list is empty.
+     * Freeze the current glider into a frame for the render pipeline,
+     * copying the reusable due and receiver buffers.
      */
-    private Color resolveColor(Emitter emitter, int tick) {
-        List<Color> colors = emitter.getColors();
-        if (colors.isEmpty()) return null;
-        int idx = (tick / emitter.getColorCycleRate()) % colors.size();
-        return colors.get(idx);
+    private GliderFrame snapshot(Player player, World world, double x, double y, double z,
+                                 float yaw, float pitch, double roll, int pt, Trail trail,
+                                 int[] dueEmitters, int due, double scale,
+                                 Lod lod, List<List<Player>> bandReceivers) {
+        LodBand[] bands = lod.bands();
+        List<List<Player>> receivers = new ArrayList<>(bands.length);
+        for (int b = 0; b < bands.length; b++) {
+            receivers.add(List.copyOf(bandReceivers.get(b)));
+        }
+        return new GliderFrame(player, world, x, y, z, yaw, pitch, roll, pt, trail,
+                Arrays.copyOf(dueEmitters, due), bands, receivers, scale, lod.force());
     }
 
+    /* ================================================================== */
+    /*  Helpers                                                           */
+    /* ================================================================== */
+
     /**
-     * Estimate body roll from lateral velocity.
+     * Estimate body roll from lateral velocity and remember the current
+     * position for the next tick.
      * Returns angle in radians; positive = tilting right.
      */
-    private double estimateRoll(Player player, Vector right) {
-        Location prev = prevLocations.get(player.getUniqueId());
-        if (prev == null) return 0;
+    private double estimateRoll(PlayerSession session, double x, double y, double z, float yaw) {
+        double prevX = session.x;
+        double prevZ = session.z;
+        boolean hadPrev = session.hasPrev;
+        session.x = x;
+        session.y = y;
+        session.z = z;
+        session.hasPrev = true;
+        if (!hadPrev) return 0;
+
+        // "right" in the horizontal plane (perpendicular to yaw)
+        double yawRad = Math.toRadians(yaw);
+        double lateral = (x - prevX) * -Math.cos(yawRad)
+                + (z - prevZ) * -Math.sin(yawRad); // positive = moving right
 
-        Vector velocity = player.getLocation().toVector().subtract(prev.toVector());
-        double lateral = velocity.dot(right); // positive = moving right
         // Clamp to a sensible roll angle (max ~35°)
         return Math.max(-0.6, Math.min(0.6, lateral * 3.0));
     }
 
     private boolean isGlidingWithElytra(Player player) {
-        if (!player.isGliding()) return false;
-        ItemStack chestplate = player.getInventory().getChestplate();
-        return chestplate != null && chestplate.getType() == Material.ELYTRA;
+        return player.isGliding() && hasElytra(player);
     }
 
-    private Vector randomUnitVector() {
-        double theta = ThreadLocalRandom.current().nextDouble(0, 2 * Math.PI);
-        double phi = Math.acos(2 * ThreadLocalRandom.current().nextDouble() - 1);
-        return new Vector(
-                Math.sin(phi) * Math.cos(theta),
-                Math.sin(phi) * Math.sin(theta),
-                Math.cos(phi)
-        );
+    private boolean hasElytra(Player player) {
+        ItemStack chestplate = player.getInventory().getChestplate();
+        return chestplate != null && chestplate.getType() == Material.ELYTRA;
     }
 }
@@ -0,0 +1,87 @@
+package com.usainsrht.elytratrails.trail;
+
+/**
+ * Splits the global particle budget between gliders so that a single
+ * expensive trail cannot starve everyone else.
+ *
+ * <p>Every glider's demand (its trail's compiled cost) is first capped at a
+ * fixed per-player quota. If the capped demands still exceed the global
+ * budget, the budget is shared max-min fairly: gliders asking for less than
+ * an equal share get all they ask for, and the surplus they leave is spread
+ * evenly over the rest. Whole particles left over after the even split are
+ * handed out one at a time, round-robin from a cursor that advances every
+ * tick, so no glider is permanently favoured.
+ */
+public class PlayerQuota {
+
+    private int perPlayerQuota;
+
+    /** Scratch flags: glider still waiting for its share. */
+    private boolean[] open = new boolean[0];
+
+    public PlayerQuota(int perPlayerQuota) {
+        setPerPlayerQuota(perPlayerQuota);
+    }
+
+    public void setPerPlayerQuota(int perPlayerQuota) {
+        this.perPlayerQuota = perPlayerQuota > 0 ? perPlayerQuota : Integer.MAX_VALUE;
+    }
+
+    public int getPerPlayerQuota() {
+        return perPlayerQuota;
+    }
+
+    /**
+     * Compute each glider's particle allowance for this tick.
+     *
+     * @param demand    particles each glider would like to spawn
+     * @param count     number of gliders (entries used in the arrays)
+     * @param pool      global particles available this tick
+     * @param rotation  round-robin cursor for distributing the remainder
+     * @param allowance output: particles each glider may spawn
+     */
+    public void allocate(int[] demand, int count, int pool, int rotation, int[] allowance) {
+        if (open.length < count) open = new boolean[Math.max(count, open.length * 2)];
+
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            allowance[i] = Math.min(demand[i], perPlayerQuota);
+            total += allowance[i];
+        }
+        if (total <= pool) return;
+
+        // Water-fill: satisfy everyone below the equal share, repeat with the rest
+        int remaining = pool;
+        int openCount = count;
+        for (int i = 0; i < count; i++) open[i] = true;
+
+        boolean settled;
+        do {
+            settled = false;
+            int share = openCount > 0 ? remaining / openCount : 0;
+            for (int i = 0; i < count; i++) {
+                if (open[i] && allowance[i] <= share) {
+                    open[i] = false;
+                    openCount--;
+                    remaining -= allowance[i];
+                    settled = true;
+                }
+            }
+        } while (settled && openCount > 0);
+
+        if (openCount == 0) return;
+
+        int share = remaining / openCount;
+        int extra = remaining - share * openCount;
+        int start = Math.floorMod(rotation, count);
+        for (int k = 0; k < count; k++) {
+            int i = (start + k) % count;
+            if (!open[i]) continue;
+            allowance[i] = share;
+            if (extra > 0) {
+                allowance[i]++;
+                extra--;
+            }
+        }
+    }
+}
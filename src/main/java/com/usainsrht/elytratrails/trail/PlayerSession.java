@@ -0,0 +1,120 @@
+package com.usainsrht.elytratrails.trail;
+
+import com.usainsrht.elytratrails.model.Trail;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * All renderer state for one online player, held in a dense slot of
+ * {@link PlayerSessions} for as long as the player is online.
+ *
+ * <p>Fields are plain primitives and references updated in place, so the
+ * particle task can work on a session without hashing, boxing or cloning
+ * locations. New per-player renderer state belongs here.
+ *
+ * <p>A session is only touched by the thread that owns its player: the main
+ * thread, or in region mode the player's region thread. The exceptions are
+ * the render pipeline hand-off fields, which are volatile or atomic.
+ */
+public final class PlayerSession {
+
+    private final int slot;
+    private final UUID uuid;
+    Player player;
+
+    // ── Glider index ──
+    /** Position in the {@link GliderIndex}, or -1 when not gliding. */
+    int gliderPos = -1;
+
+    /** Region mode: this player's entity-scheduler task while gliding. */
+    ScheduledTask regionTask;
+
+    // ── Flight (reset whenever the player stops gliding) ──
+    /** Ticks rendered since the glide started. */
+    int ticks;
+    /** Whether x/y/z below hold last tick's position (for roll estimation). */
+    boolean hasPrev;
+
+    /** This glide's emitter schedule (see EmitterScheduler). */
+    final EmitterWheel wheel = new EmitterWheel();
+
+    /**
+     * The pipeline rendering (or holding a queued frame of) this player
+     * while one is in flight. Keyed by pipeline rather than a flag, so
+     * frames dropped by a pipeline that was shut down never block the
+     * next one.
+     */
+    volatile RenderPipeline frameInFlight;
+    /** Particles a worker finished computing, waiting for the owning thread to send them. */
+    final AtomicReference<ParticleBatch> renderedBatch = new AtomicReference<>();
+    /** A sent batch kept for the next frame, so batches are not reallocated. */
+    final AtomicReference<ParticleBatch> spareBatch = new AtomicReference<>();
+
+    // ── Entitlement (see TrailEntitlements) ──
+    Trail trail;
+    boolean allowed;
+    /** Tick the entitlement was resolved at; {@link Integer#MIN_VALUE} = stale. */
+    int entitlementTick = Integer.MIN_VALUE;
+    int entitlementGeneration;
+
+    // ── Last computed basis ──
+    double x, y, z;
+    float yaw, pitch;
+    double roll;
+
+    // ── Level of detail (last rendered tick) ──
+    /** Budget and quota multiplier applied on top of the band detail. */
+    double detailScale = 1.0;
+    /** Receivers in each LOD band; resized when the bands change. */
+    int[] bandViewers = new int[0];
+
+    PlayerSession(int slot, Player player) {
+        this.slot = slot;
+        this.uuid = player.getUniqueId();
+        this.player = player;
+    }
+
+    /**
+     * Forget everything tied to the current glide.
+     */
+    void resetFlight() {
+        ticks = 0;
+        hasPrev = false;
+        roll = 0;
+        wheel.clear();
+        recycle(renderedBatch.getAndSet(null));
+    }
+
+    /**
+     * Empty a batch that was sent or dropped and keep it for the next frame.
+     */
+    void recycle(ParticleBatch batch) {
+        if (batch == null) return;
+        batch.clear();
+        spareBatch.set(batch);
+    }
+
+    void invalidateEntitlement() {
+        entitlementTick = Integer.MIN_VALUE;
+    }
+
+    // ── Getters ─────────────────────────────────────────────
+
+    public int getSlot() { return slot; }
+    public UUID getUniqueId() { return uuid; }
+    public Player getPlayer() { return player; }
+    public boolean isGliding() { return gliderPos >= 0 || regionTask != null; }
+    public int getTicks() { return ticks; }
+    public Trail getTrail() { return allowed ? trail : null; }
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getZ() { return z; }
+    public float getYaw() { return yaw; }
+    public float getPitch() { return pitch; }
+    public double getRoll() { return roll; }
+    public double getDetailScale() { return detailScale; }
+    public int getBandViewers(int band) { return band < bandViewers.length ? bandViewers[band] : 0; }
+}
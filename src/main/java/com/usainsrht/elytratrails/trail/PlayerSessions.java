@@ -0,0 +1,91 @@
+package com.usainsrht.elytratrails.trail;
+
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Slot-indexed table of {@link PlayerSession}s.
+ *
+ * <p>Each player gets a dense id on join, reused after they quit, so
+ * per-player state can live in flat arrays indexed by slot. The UUID map is
+ * only used by event handlers; the tick loop reaches sessions through the
+ * {@link GliderIndex} and never hashes. Slot assignment is synchronized so
+ * players can join on different region threads.
+ */
+public class PlayerSessions {
+
+    private PlayerSession[] slots = new PlayerSession[64];
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int highWater;
+    private int size;
+    private final Map<UUID, PlayerSession> byUuid = new ConcurrentHashMap<>();
+
+    /**
+     * Get the player's session, assigning a slot if they have none yet.
+     */
+    public synchronized PlayerSession open(Player player) {
+        PlayerSession session = byUuid.get(player.getUniqueId());
+        if (session != null) {
+            session.player = player;
+            return session;
+        }
+
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = highWater++;
+            if (slot == slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+        }
+        session = new PlayerSession(slot, player);
+        slots[slot] = session;
+        byUuid.put(session.getUniqueId(), session);
+        size++;
+        return session;
+    }
+
+    /**
+     * Release a player's slot.
+     *
+     * @return the closed session, or null if the player had none
+     */
+    public synchronized PlayerSession close(UUID uuid) {
+        PlayerSession session = byUuid.remove(uuid);
+        if (session == null) return null;
+
+        slots[session.getSlot()] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = session.getSlot();
+        size--;
+        return session;
+    }
+
+    public PlayerSession get(UUID uuid) {
+        return byUuid.get(uuid);
+    }
+
+    /**
+     * @return the session in a slot, or null if the slot is free
+     */
+    public synchronized PlayerSession get(int slot) {
+        return slot < highWater ? slots[slot] : null;
+    }
+
+    /** @return one past the highest slot ever assigned */
+    public int capacity() {
+        return highWater;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,196 @@
+package com.usainsrht.elytratrails.trail;
+
+import org.bukkit.entity.Player;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Worker pool that computes the particles of {@link GliderFrame}s off the
+ * main thread.
+ *
+ * <p>Each worker owns an {@link EmitterContext} and does all trigonometry,
+ * basis transforms and point generation for a frame, recording the result in
+ * a {@link ParticleBatch}. Workers never call {@code World#spawnParticle}:
+ * it reads the live state of the source and receivers, which only their
+ * owning thread may touch. The finished batch is parked on the session and
+ * {@link #sendRendered sent} by the owning thread on the glider's next tick,
+ * so async trails lag one tick behind the glider.
+ *
+ * <p>The main thread never waits for workers. A glider whose previous frame
+ * is still being rendered is skipped for the tick instead of queuing more
+ * work, so a slow pool degrades to fewer particles rather than a backlog.
+ * The global particle cap is enforced per band against a shared counter
+ * that the particle task drains every tick.
+ */
+public class RenderPipeline {
+
+    private final ExecutorService workers;
+    private final ThreadLocal<EmitterContext> contexts = ThreadLocal.withInitial(EmitterContext::new);
+    private final Logger logger;
+    private final int threads;
+
+    /** Particles spawned since the last drain. */
+    private final AtomicInteger spawned = new AtomicInteger();
+    /** Bands cut short or skipped since the last drain. */
+    private final AtomicInteger skipped = new AtomicInteger();
+    /** Particle cap for the current tick. */
+    private volatile int limit = Integer.MAX_VALUE;
+
+    /**
+     * @param threads worker count; 0 or less = half the available processors
+     */
+    public RenderPipeline(int threads, Logger logger) {
+        this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.logger = logger;
+
+        AtomicInteger ids = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "ElytraTrails-Render-" + ids.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.workers = Executors.newFixedThreadPool(this.threads, factory);
+    }
+
+    /**
+     * Start a tick: set its particle cap and reset the shared counter.
+     *
+     * @return particles spawned by workers since the previous call
+     */
+    public int beginTick(int tickBudget) {
+        limit = tickBudget;
+        return spawned.getAndSet(0);
+    }
+
+    /**
+     * @return bands cut short by the cap or frames dropped since the previous call
+     */
+    public int drainSkipped() {
+        return skipped.getAndSet(0);
+    }
+
+    /**
+     * Hand a frame to the pool.
+     *
+     * @return false if the session's previous frame is still in flight and
+     *         this one was dropped
+     */
+    public boolean submit(PlayerSession session, GliderFrame frame) {
+        if (session.frameInFlight == this) {
+            skipped.incrementAndGet();
+            return false;
+        }
+        session.frameInFlight = this;
+        ParticleBatch spare = session.spareBatch.getAndSet(null);
+        ParticleBatch batch = spare != null ? spare : new ParticleBatch();
+        batch.reset(frame);
+        try {
+            workers.execute(() -> {
+                try {
+                    render(frame, batch);
+                    session.recycle(session.renderedBatch.getAndSet(batch));  // never sent: superseded
+                } catch (Throwable t) {
+                    logger.log(Level.WARNING, "Failed to render trail for " + frame.source().getName(), t);
+                    session.recycle(batch);
+                } finally {
+                    release(session);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shut down by a reload on another thread
+            session.recycle(batch);
+            release(session);
+            skipped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Send the particles a worker finished for this session, if any. Call on
+     * the thread that owns the session's player.
+     */
+    static void sendRendered(PlayerSession session) {
+        ParticleBatch batch = session.renderedBatch.getAndSet(null);
+        if (batch == null) return;
+        try {
+            batch.send();
+        } finally {
+            session.recycle(batch);
+        }
+    }
+
+    /**
+     * Clear the session's in-flight mark if it is still ours; a newer
+     * pipeline may have taken it over after a reload.
+     */
+    private void release(PlayerSession session) {
+        if (session.frameInFlight == this) session.frameInFlight = null;
+    }
+
+    private void render(GliderFrame frame, ParticleBatch batch) {
+        EmitterContext ctx = contexts.get();
+        try {
+            renderBands(ctx, frame, batch);
+        } finally {
+            ctx.setBatch(null, 0);
+        }
+    }
+
+    private void renderBands(EmitterContext ctx, GliderFrame frame, ParticleBatch batch) {
+        ctx.update(frame.world(), frame.x(), frame.y(), frame.z(), frame.yaw(), frame.pitch(), frame.roll());
+
+        LodBand[] bands = frame.bands();
+        for (int b = 0; b < bands.length; b++) {
+            List<Player> receivers = frame.receivers().get(b);
+            if (receivers.isEmpty()) continue;
+
+            int remaining = limit - spawned.get();
+            if (remaining <= 0) {
+                skipped.incrementAndGet();
+                return;
+            }
+
+            ctx.setReceivers(receivers, frame.source(), frame.force());
+            ctx.setBatch(batch, b);
+            ctx.setDetail(bands[b].detail() * frame.scale());
+            ctx.resetSpawned();
+            boolean complete = TrailRenderer.renderEmitters(ctx, frame.trail(), frame.due(), frame.due().length,
+                    frame.pt(), bands[b].skipShapes(), remaining);
+            spawned.addAndGet(ctx.resetSpawned());
+            if (!complete) {
+                skipped.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Stop accepting frames and wait briefly for in-flight ones. Frames
+     * dropped here leave their sessions marked with this pipeline, which
+     * only this pipeline checks.
+     */
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
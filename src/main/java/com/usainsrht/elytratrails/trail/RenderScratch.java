@@ -0,0 +1,35 @@
+package com.usainsrht.elytratrails.trail;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reusable buffers for rendering one glider at a time. The global ticker
+ * owns one; in region mode each region thread gets its own, so no scratch
+ * state is shared between threads.
+ */
+final class RenderScratch {
+
+    /** Scratch geometry re-targeted at each player in turn. */
+    final EmitterContext ctx = new EmitterContext();
+
+    /** Filled by {@link Player#getLocation(Location)}. */
+    final Location location = new Location(null, 0, 0, 0);
+
+    /** Receiver list per LOD band for the glider being rendered. */
+    final List<List<Player>> bandReceivers = new ArrayList<>();
+
+    /** Indexes of the current glider's due emitters. */
+    int[] dueEmitters = new int[8];
+
+    /**
+     * Make sure there is one receiver list per band.
+     */
+    void ensureBands(int count) {
+        while (bandReceivers.size() < count) bandReceivers.add(new ArrayList<>());
+        while (bandReceivers.size() > count) bandReceivers.remove(bandReceivers.size() - 1);
+    }
+}
@@ -0,0 +1,72 @@
+package com.usainsrht.elytratrails.trail;
+
+import com.usainsrht.elytratrails.config.PlayerDataManager;
+import com.usainsrht.elytratrails.config.TrailManager;
+import com.usainsrht.elytratrails.model.Trail;
+import org.bukkit.entity.Player;
+
+/**
+ * Resolves and caches, on each {@link PlayerSession}, the player's active
+ * trail and whether they may use it, so the particle task neither looks
+ * trails up by id nor calls {@code hasPermission} every tick.
+ *
+ * <p>Entries are invalidated explicitly on trail selection, unlocks, world
+ * changes and {@code /elytra reload}. Bukkit has no event for permission
+ * changes made by a permissions plugin, so every entry is also re-checked
+ * after {@code render.permission-recheck-ticks}.
+ */
+public class TrailEntitlements {
+
+    private final TrailManager trailManager;
+    private final PlayerDataManager playerData;
+
+    private volatile int recheckTicks;
+    /** Bumped by {@link #invalidateAll()}; older entries are stale. */
+    private volatile int generation;
+
+    public TrailEntitlements(TrailManager trailManager, PlayerDataManager playerData, int recheckTicks) {
+        this.trailManager = trailManager;
+        this.playerData = playerData;
+        setRecheckTicks(recheckTicks);
+    }
+
+    public void setRecheckTicks(int recheckTicks) {
+        this.recheckTicks = Math.max(1, recheckTicks);
+    }
+
+    /**
+     * @return the player's active trail if they are entitled to it, otherwise null
+     */
+    public Trail resolve(PlayerSession session, int tick) {
+        if (session.entitlementTick == Integer.MIN_VALUE
+                || session.entitlementGeneration != generation
+                || tick - session.entitlementTick >= recheckTicks) {
+            compute(session);
+            session.entitlementTick = tick;
+            session.entitlementGeneration = generation;
+        }
+        return session.getTrail();
+    }
+
+    private void compute(PlayerSession session) {
+        Player player = session.player;
+        String trailId = playerData.getActiveTrail(session.getUniqueId());
+        Trail trail = trailId != null ? trailManager.getTrail(trailId) : null;
+
+        session.trail = trail;
+        session.allowed = trail != null
+                && (player.hasPermission("elytratrails.trail.*")
+                || player.hasPermission(trail.getPermission()));
+    }
+
+    public void invalidate(PlayerSession session) {
+        session.invalidateEntitlement();
+    }
+
+    /**
+     * Mark every session's entitlement stale, e.g. after trails were reloaded.
+     */
+    public void invalidateAll() {
+        generation++;
+    }
+}
@@ -0,0 +1,43 @@
+package com.usainsrht.elytratrails.trail;
+
+import com.usainsrht.elytratrails.model.Emitter;
+import com.usainsrht.elytratrails.model.SimpleEmitter;
+import com.usainsrht.elytratrails.model.Trail;
+
+import java.util.List;
+
+/**
+ * The emitter loop shared by the synchronous path in {@link ParticleTask}
+ * and the {@link RenderPipeline} workers. Stateless; everything mutable
+ * lives in the {@link EmitterContext} passed in.
+ */
+final class TrailRenderer {
+
+    private TrailRenderer() {
+    }
+
+    /**
+     * Render a trail's due emitters for the context's current pose,
+     * receivers and detail.
+     *
+     * @param due   indexes of the emitters to fire
+     * @param count number of entries in {@code due}
+     * @param limit stop once the context has spawned this many particles
+     * @return false if rendering stopped early because the limit was reached
+     */
+    static boolean renderEmitters(EmitterContext ctx, Trail trail, int[] due, int count,
+                                  int pt, boolean skipShapes, int limit) {
+        List<Emitter> emitters = trail.getEmitters();
+        for (int i = 0; i < count; i++) {
+            Emitter emitter = emitters.get(due[i]);
+            if (skipShapes && !(emitter instanceof SimpleEmitter)) continue;
+
+            int anchors = ctx.resolveAnchors(emitter.getSpawnPoint(), ctx.scaleSteps(emitter.getWingSteps()));
+            for (int a = 0; a < anchors; a++) {
+                if (ctx.getSpawned() >= limit) return false;
+                emitter.render(ctx, ctx.getAnchorX(a), ctx.getAnchorY(a), ctx.getAnchorZ(a), pt);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,244 @@
+package com.usainsrht.elytratrails.trail;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index of online players per world, used to resolve which players
+ * can see a glider's particles.
+ *
+ * <p>Players are bucketed into a horizontal grid whose cell size equals the
+ * view radius, so a query only has to look at the 3×3 cells around the
+ * glider. Receivers are returned split into level-of-detail bands by
+ * distance. The index is rebuilt once per tick; viewer entries are pooled
+ * and chained into their cell, and each world's cells live in an
+ * open-addressing table keyed by the primitive cell key, so a rebuild or
+ * query neither boxes keys nor allocates in steady state.
+ */
+public class ViewerIndex {
+
+    /** Rebuilds between dropping all tables (unloaded worlds, oversized tables). */
+    private static final int PRUNE_INTERVAL = 200;
+
+    /** A pooled snapshot of one player's position. */
+    private static final class Viewer {
+        Player player;
+        double x, y, z;
+        /** Next viewer in the same cell. */
+        Viewer next;
+    }
+
+    /**
+     * One world's cells: cell key → first viewer of the cell, with linear
+     * probing. Emptied in place by {@link #clear()}.
+     */
+    private static final class Grid {
+
+        private long[] keys = new long[16];
+        private Viewer[] heads = new Viewer[16];
+        private int size;
+
+        void clear() {
+            if (size == 0) return;
+            Arrays.fill(heads, null);
+            size = 0;
+        }
+
+        Viewer get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); heads[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) return heads[i];
+            }
+            return null;
+        }
+
+        void add(long key, Viewer viewer) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (heads[i] != null) {
+                if (keys[i] == key) {
+                    viewer.next = heads[i];
+                    heads[i] = viewer;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            viewer.next = null;
+            keys[i] = key;
+            heads[i] = viewer;
+            if (++size * 2 > keys.length) grow();
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Viewer[] oldHeads = heads;
+            keys = new long[oldKeys.length * 2];
+            heads = new Viewer[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldHeads[j] == null) continue;
+                int i = slot(oldKeys[j], mask);
+                while (heads[i] != null) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                heads[i] = oldHeads[j];
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    private final Map<World, Grid> worlds = new HashMap<>();
+    private final List<Viewer> pool = new ArrayList<>();
+    private final Location scratchLocation = new Location(null, 0, 0, 0);
+
+    private double radius;
+    private double radiusSq;
+    private int rebuilds;
+
+    public ViewerIndex(double radius) {
+        setRadius(radius);
+    }
+
+    public void setRadius(double radius) {
+        this.radius = Math.max(1, radius);
+        this.radiusSq = this.radius * this.radius;
+        // Cell size changed: drop all cells
+        worlds.clear();
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * Re-bucket all online players. Call once per tick before querying.
+     */
+    public void rebuild(Collection<? extends Player> online) {
+        if (++rebuilds % PRUNE_INTERVAL == 0) {
+            worlds.clear();
+        } else {
+            for (Grid grid : worlds.values()) {
+                grid.clear();
+            }
+        }
+
+        int used = 0;
+        for (Player player : online) {
+            Location loc = player.getLocation(scratchLocation);
+            World world = loc.getWorld();
+            if (world == null) continue;
+
+            if (used == pool.size()) pool.add(new Viewer());
+            Viewer viewer = pool.get(used++);
+            viewer.player = player;
+            viewer.x = loc.getX();
+            viewer.y = loc.getY();
+            viewer.z = loc.getZ();
+
+            Grid grid = worlds.get(world);
+            if (grid == null) {
+                grid = new Grid();
+                worlds.put(world, grid);
+            }
+            grid.add(cellKey(cell(viewer.x), cell(viewer.z)), viewer);
+        }
+
+        // Release references to players that went offline
+        for (int i = used; i < pool.size(); i++) {
+            Viewer viewer = pool.get(i);
+            viewer.player = null;
+            viewer.next = null;
+        }
+    }
+
+    /**
+     * Collect all players within the view radius of a point, split into
+     * distance bands.
+     *
+     * @param bandLimitsSq squared outer distance of each band, ascending;
+     *                     players beyond the last limit go into the last band
+     * @param out          one list per band, cleared and filled with receivers
+     * @return the total number of receivers found
+     */
+    public int query(World world, double x, double y, double z,
+                     double[] bandLimitsSq, List<List<Player>> out) {
+        for (int b = 0, n = out.size(); b < n; b++) {
+            out.get(b).clear();
+        }
+        Grid grid = worlds.get(world);
+        if (grid == null) return 0;
+
+        int found = 0;
+        int lastBand = bandLimitsSq.length - 1;
+        int cx = cell(x);
+        int cz = cell(z);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                for (Viewer viewer = grid.get(cellKey(cx + dx, cz + dz)); viewer != null; viewer = viewer.next) {
+                    double ddx = viewer.x - x;
+                    double ddy = viewer.y - y;
+                    double ddz = viewer.z - z;
+                    double distSq = ddx * ddx + ddy * ddy + ddz * ddz;
+                    if (distSq > radiusSq) continue;
+
+                    int band = 0;
+                    while (band < lastBand && distSq > bandLimitsSq[band]) band++;
+                    out.get(band).add(viewer.player);
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Split an already-gathered set of nearby players into distance bands,
+     * without touching the grid. Used in region mode, where candidates come
+     * from the glider's own region and this method may run on any thread.
+     *
+     * @param scratch location to read player positions into
+     * @return the total number of receivers found
+     */
+    public static int split(Collection<? extends Player> candidates, double x, double y, double z,
+                            double radiusSq, double[] bandLimitsSq, List<List<Player>> out,
+                            Location scratch) {
+        for (int b = 0, n = out.size(); b < n; b++) {
+            out.get(b).clear();
+        }
+        int found = 0;
+        int lastBand = bandLimitsSq.length - 1;
+        for (Player player : candidates) {
+            Location loc = player.getLocation(scratch);
+            double dx = loc.getX() - x;
+            double dy = loc.getY() - y;
+            double dz = loc.getZ() - z;
+            double distSq = dx * dx + dy * dy + dz * dz;
+            if (distSq > radiusSq) continue;
+
+            int band = 0;
+            while (band < lastBand && distSq > bandLimitsSq[band]) band++;
+            out.get(band).add(player);
+            found++;
+        }
+        return found;
+    }
+
+    private int cell(double coord) {
+        return (int) Math.floor(coord / radius);
+    }
+
+    private static long cellKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,86 @@
+package com.usainsrht.elytratrails.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrailBitsTest {
+
+    @Test
+    void withAddsWithoutChangingOriginal() {
+        TrailBits one = TrailBits.EMPTY.with(3);
+        TrailBits two = one.with(130);
+
+        assertTrue(one.contains(3));
+        assertFalse(one.contains(130));
+        assertTrue(two.contains(3));
+        assertTrue(two.contains(130));
+        assertEquals(2, two.size());
+        assertTrue(TrailBits.EMPTY.isEmpty());
+    }
+
+    @Test
+    void withExistingIndexReturnsSameInstance() {
+        TrailBits bits = TrailBits.EMPTY.with(5);
+
+        assertSame(bits, bits.with(5));
+    }
+
+    @Test
+    void withoutRemovesAndTrimsTrailingWords() {
+        TrailBits bits = TrailBits.EMPTY.with(3).with(130);
+
+        TrailBits removed = bits.without(130);
+
+        assertTrue(bits.contains(130));
+        assertFalse(removed.contains(130));
+        assertTrue(removed.contains(3));
+        assertArrayEquals(new long[]{1L << 3}, removed.toLongArray());
+        assertSame(removed, removed.without(7));
+        assertTrue(TrailBits.EMPTY.with(9).without(9).isEmpty());
+    }
+
+    @Test
+    void containsOutOfRangeIsFalse() {
+        TrailBits bits = TrailBits.EMPTY.with(1);
+
+        assertFalse(bits.contains(-1));
+        assertFalse(bits.contains(64));
+        assertFalse(bits.contains(10_000));
+    }
+
+    @Test
+    void rejectsNegativeIndex() {
+        assertThrows(IllegalArgumentException.class, () -> TrailBits.EMPTY.with(-1));
+    }
+
+    @Test
+    void forEachVisitsIndexesInAscendingOrder() {
+        TrailBits bits = TrailBits.EMPTY.with(200).with(0).with(63).with(64);
+        List<Integer> seen = new ArrayList<>();
+
+        bits.forEach(seen::add);
+
+        assertEquals(List.of(0, 63, 64, 200), seen);
+    }
+
+    @Test
+    void ofDropsTrailingZeroWordsAndCopies() {
+        long[] words = {0b101L, 0L, 0L};
+        TrailBits bits = TrailBits.of(words);
+        words[0] = 0;
+
+        assertArrayEquals(new long[] {0b101L}, bits.toLongArray());
+        assertEquals(TrailBits.EMPTY.with(0).with(2), bits);
+        assertEquals(TrailBits.EMPTY.with(0).with(2).hashCode(), bits.hashCode());
+        assertSame(TrailBits.EMPTY, TrailBits.of(new long[] {0L, 0L}));
+    }
+}
@@ -0,0 +1,171 @@
+package com.usainsrht.elytratrails.storage;
+
+import com.usainsrht.elytratrails.model.TrailBits;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerJournalTest {
+
+    private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID BOB = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final UUID CAROL = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+    @TempDir
+    Path dir;
+
+    private Path journalDir;
+    private TrailIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journalDir = dir.resolve("journal");
+        index = new TrailIndex(dir.resolve("trail-index.yml"));
+        index.assignAll(List.of("flame", "heart", "rainbow"));
+    }
+
+    @Test
+    void replaysLastRecordPerPlayerAfterReopen() throws IOException {
+        PlayerRecord alice1 = new PlayerRecord("flame", TrailBits.EMPTY.with(0));
+        PlayerRecord bob = new PlayerRecord(null, TrailBits.EMPTY.with(1));
+        PlayerRecord alice2 = new PlayerRecord("heart", TrailBits.EMPTY.with(0).with(1));
+
+        PlayerJournal journal = new PlayerJournal(journalDir, index);
+        CompletableFuture.allOf(
+                journal.append(ALICE, alice1),
+                journal.append(BOB, bob),
+                journal.append(ALICE, alice2)).join();
+        journal.close();
+
+        Map<UUID, PlayerRecord> replayed = reopenAndReplay();
+
+        assertEquals(Map.of(ALICE, alice2, BOB, bob), replayed);
+        assertEquals(List.of(ALICE, BOB), List.copyOf(replayed.keySet()));
+    }
+
+    @Test
+    void replaysSegmentsInOrder() throws IOException {
+        PlayerRecord older = new PlayerRecord("flame", TrailBits.EMPTY.with(0));
+        PlayerRecord newer = new PlayerRecord("rainbow", TrailBits.EMPTY.with(0).with(2));
+
+        PlayerJournal journal = new PlayerJournal(journalDir, index);
+        journal.append(ALICE, older).join();
+        journal.rotate();
+        journal.append(ALICE, newer).join();
+        journal.close();
+
+        assertEquals(Map.of(ALICE, newer), reopenAndReplay());
+    }
+
+    @Test
+    void deleteSealedDropsRotatedEntries() throws IOException {
+        PlayerRecord flushed = new PlayerRecord("flame", TrailBits.EMPTY.with(0));
+        PlayerRecord pending = new PlayerRecord("heart", TrailBits.EMPTY.with(1));
+
+        PlayerJournal journal = new PlayerJournal(journalDir, index);
+        journal.append(ALICE, flushed).join();
+        journal.rotate();
+        journal.deleteSealed();
+        journal.append(BOB, pending).join();
+        journal.close();
+
+        assertEquals(Map.of(BOB, pending), reopenAndReplay());
+    }
+
+    @Test
+    void emptyJournalLeavesNoSegmentBehind() throws IOException {
+        new PlayerJournal(journalDir, index).close();
+
+        assertTrue(segments().isEmpty());
+    }
+
+    @Test
+    void stopsAtTornFinalEntry() throws IOException {
+        PlayerRecord alice = new PlayerRecord("flame", TrailBits.EMPTY.with(0));
+        PlayerRecord bob = new PlayerRecord("heart", TrailBits.EMPTY.with(1));
+
+        PlayerJournal journal = new PlayerJournal(journalDir, index);
+        journal.append(ALICE, alice).join();
+        journal.append(BOB, bob).join();
+        journal.close();
+
+        // Crash in the middle of writing the last entry
+        Path segment = onlySegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        assertEquals(Map.of(ALICE, alice), reopenAndReplay());
+    }
+
+    @Test
+    void stopsAtCorruptEntry() throws IOException {
+        PlayerRecord alice = new PlayerRecord("flame", TrailBits.EMPTY.with(0));
+        PlayerRecord bob = new PlayerRecord("heart", TrailBits.EMPTY.with(1));
+        PlayerRecord carol = new PlayerRecord(null, TrailBits.EMPTY.with(2));
+
+        PlayerJournal journal = new PlayerJournal(journalDir, index);
+        journal.append(ALICE, alice).join();
+        journal.append(BOB, bob).join();
+        journal.append(CAROL, carol).join();
+        journal.close();
+
+        // Flip the last byte of Bob's payload; his checksum no longer matches
+        Path segment = onlySegment();
+        byte[] bytes = Files.readAllBytes(segment);
+        int entryLength = bytes.length / 3;
+        bytes[2 * entryLength - 1] ^= 0x55;
+        Files.write(segment, bytes);
+
+        assertEquals(Map.of(ALICE, alice), reopenAndReplay());
+    }
+
+    @Test
+    void ignoresGarbageLength() throws IOException {
+        PlayerRecord alice = new PlayerRecord("flame", TrailBits.EMPTY.with(0));
+
+        PlayerJournal journal = new PlayerJournal(journalDir, index);
+        journal.append(ALICE, alice).join();
+        journal.close();
+
+        Path segment = onlySegment();
+        Files.write(segment, new byte[] {0x7f, -1, -1, -1, 0, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        assertEquals(Map.of(ALICE, alice), reopenAndReplay());
+    }
+
+    private Map<UUID, PlayerRecord> reopenAndReplay() throws IOException {
+        PlayerJournal journal = new PlayerJournal(journalDir, index);
+        try {
+            return journal.replay();
+        } finally {
+            journal.close();
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.filter(file -> file.toString().endsWith(".log")).toList();
+        }
+    }
+}
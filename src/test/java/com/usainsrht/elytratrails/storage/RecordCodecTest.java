@@ -0,0 +1,93 @@
+package com.usainsrht.elytratrails.storage;
+
+import com.usainsrht.elytratrails.model.TrailBits;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecordCodecTest {
+
+    @TempDir
+    Path dir;
+
+    private TrailIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new TrailIndex(dir.resolve("trail-index.yml"));
+        index.assignAll(List.of("flame", "heart", "rainbow"));
+    }
+
+    @Test
+    void roundTripsActiveTrailAndUnlocks() throws IOException {
+        TrailBits unlocked = TrailBits.EMPTY.with(0).with(2).with(70);
+        PlayerRecord record = new PlayerRecord("heart", unlocked);
+
+        assertEquals(record, decode(encode(record)));
+    }
+
+    @Test
+    void roundTripsEmptyRecord() throws IOException {
+        PlayerRecord record = new PlayerRecord(null, TrailBits.EMPTY);
+
+        byte[] bytes = encode(record);
+
+        // -1 for no active trail, then zero words
+        assertArrayEquals(new byte[] {-1, -1, -1, -1, 0}, bytes);
+        assertEquals(record, decode(bytes));
+    }
+
+    @Test
+    void readsUnknownActiveIndexAsNone() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(42);
+        out.writeByte(0);
+
+        PlayerRecord record = decode(bytes.toByteArray());
+
+        assertNull(record.activeTrail());
+        assertEquals(TrailBits.EMPTY, record.unlocked());
+    }
+
+    @Test
+    void assignsIndexToNewActiveTrail() throws IOException {
+        PlayerRecord record = new PlayerRecord("sparkle", TrailBits.EMPTY);
+
+        assertEquals(record, decode(encode(record)));
+        assertEquals(3, index.indexOf("sparkle"));
+    }
+
+    @Test
+    void rejectsTruncatedInput() throws IOException {
+        byte[] bytes = encode(new PlayerRecord("flame", TrailBits.EMPTY.with(1)));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+
+        assertThrows(EOFException.class, () -> decode(truncated));
+    }
+
+    private byte[] encode(PlayerRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RecordCodec.write(new DataOutputStream(bytes), record, index);
+        return bytes.toByteArray();
+    }
+
+    private PlayerRecord decode(byte[] bytes) throws IOException {
+        return RecordCodec.read(new DataInputStream(new ByteArrayInputStream(bytes)), index);
+    }
+}